@@ -1,24 +1,158 @@
 package Com.SimpleFlashSaleBackend.SimpleFlashSale.Config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    // The property alone is not enough: like Boot's own executors, fall back to pools on a pre-21 JRE
+    private final boolean virtualThreads;
+
+    public AsyncConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            logger.warn("⚠️ spring.threads.virtual.enabled is set but Java {} has no virtual threads; using thread pools",
+                    Runtime.version().feature());
+        }
+    }
+
+    @Value("${payment.executor.core-size:5}")
+    private int paymentCoreSize;
+
+    @Value("${payment.executor.max-size:10}")
+    private int paymentMaxSize;
+
+    @Value("${payment.executor.queue-capacity:50}")
+    private int paymentQueueCapacity;
+
     @Bean(name = "paymentExecutor")
     public Executor taskExecutor() {
+        if (virtualThreads) {
+            // One virtual thread per payment, no pool cap: payments mostly wait on JDBC, Redis and the gateway
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("PaymentThread-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);  // Min 5 threads
-        executor.setMaxPoolSize(10);  // Max 10 threads
-        executor.setQueueCapacity(50);
+        executor.setCorePoolSize(paymentCoreSize);
+        executor.setMaxPoolSize(paymentMaxSize);
+        // Keep max-size + queue-capacity >= payment.consumer.max-in-flight so the pipeline is never rejected
+        executor.setQueueCapacity(paymentQueueCapacity);
         executor.setThreadNamePrefix("PaymentThread-");
         executor.initialize();
         return executor;
     }
+
+    @Value("${order-status.push.send-threads:4}")
+    private int orderStatusSendThreads;
+
+    // Writes to order status WebSockets. Each session has at most one task queued, so the queue is bounded by
+    // the number of sessions and never rejects; a stuck write holds its thread until the session is evicted
+    @Bean(name = "orderStatusSendExecutor")
+    public Executor orderStatusSendExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("OrderStatusSend-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(orderStatusSendThreads);
+        executor.setMaxPoolSize(orderStatusSendThreads);
+        executor.setThreadNamePrefix("OrderStatusSend-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Buyer lookups that miss the in-memory directory and go to MySQL, off the async buy's request thread
+    @Bean(name = "userLookupExecutor")
+    public Executor userLookupExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("UserLookup-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("UserLookup-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Continuations of the async buy once Redis has answered: the Kafka send (which can block on metadata or a full
+    // buffer) and the restock publish must not run on Redisson's event loop
+    @Bean(name = "orderPlacementExecutor")
+    public Executor orderPlacementExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("OrderPlacement-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("OrderPlacement-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Search index reloads triggered over Redis pub/sub. One thread applies them in arrival order, so an older read
+    // of a coupon never lands after a newer one; a full queue drops the reload and the periodic rebuild catches up
+    @Bean(name = "searchIndexExecutor")
+    public Executor searchIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("SearchIndex-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "inventoryLeaseExecutor")
+    public Executor inventoryLeaseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("LeaseRefill-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Background catalog refreshes; a full queue runs the refresh on the reader, never drops it
+    @Bean(name = "catalogRefreshExecutor")
+    public Executor catalogRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("CatalogRefresh-");
+        executor.initialize();
+        return executor;
+    }
 }
\ No newline at end of file
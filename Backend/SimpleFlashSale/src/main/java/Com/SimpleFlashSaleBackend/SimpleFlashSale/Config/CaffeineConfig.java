@@ -1,21 +1,51 @@
 package Com.SimpleFlashSaleBackend.SimpleFlashSale.Config;
 
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogPage;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Service.CatalogCacheMetrics;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Service.CatalogPageLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class CaffeineConfig {
 
+    // Hard limit on how stale a page can get, even if every refresh fails
+    @Value("${cache.coupon-pages.local-ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    @Value("${cache.coupon-pages.refresh-ahead.enabled:true}")
+    private boolean refreshAhead;
+
+    @Value("${cache.coupon-pages.refresh-after-seconds:60}")
+    private long refreshAfterSeconds;
+
+    // Holds coupon metadata pages only; stock is overlaid from Redis on every read
     @Bean
-    public com.github.benmanes.caffeine.cache.Cache<String, List<CouponDTO>> couponCache() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.SECONDS) // Expiration time of 30 seconds
-                .maximumSize(100) // Max cache size (adjust as needed)
-                .build();
+    public LoadingCache<CatalogPage, List<CouponDTO>> couponCache(CatalogPageLoader catalogPageLoader,
+                                                                  @Qualifier("catalogRefreshExecutor") Executor refreshExecutor,
+                                                                  MeterRegistry meterRegistry) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(localTtlSeconds, TimeUnit.SECONDS)
+                .maximumSize(1_000)
+                .executor(refreshExecutor)
+                .recordStats();
+        if (refreshAhead) {
+            // A read past this age returns the cached page and reloads it in the background
+            builder.refreshAfterWrite(refreshAfterSeconds, TimeUnit.SECONDS);
+        }
+        LoadingCache<CatalogPage, List<CouponDTO>> cache = builder.build(catalogPageLoader);
+        // Hits, misses, evictions and load times as cache.* meters, tagged cache=couponPages
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, CatalogCacheMetrics.CAFFEINE_CACHE_NAME);
     }
 }
@@ -0,0 +1,122 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Config;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEvent;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEventDeserializer;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEventSerializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaRetryTopic;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableKafkaRetryTopic
+public class KafkaConfig {
+
+    @Value("${kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.producer.retries}")
+    private int retries;
+
+    @Value("${kafka.producer.linger-ms:5}")
+    private int lingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Bean
+    public ProducerFactory<String, OrderEvent> orderProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, OrderEventSerializer.class);
+
+        // Idempotent producer: broker retries can neither drop nor duplicate an order
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.RETRIES_CONFIG, retries);
+
+        // Batch orders arriving within a few ms of each other into one compressed request
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, OrderEvent> orderKafkaTemplate(ProducerFactory<String, OrderEvent> orderProducerFactory) {
+        return new KafkaTemplate<>(orderProducerFactory);
+    }
+
+    /**
+     * Used by the payment retry and dead-letter topics. Records that could not even be decoded are forwarded
+     * as their raw bytes, so the value serializer also accepts byte[].
+     */
+    @Bean
+    public KafkaTemplate<String, Object> paymentRetryKafkaTemplate(ProducerFactory<String, OrderEvent> orderProducerFactory) {
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(OrderEvent.class, new OrderEventSerializer());
+        serializers.put(byte[].class, new ByteArraySerializer());
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(orderProducerFactory.getConfigurationProperties(),
+                new StringSerializer(), new DelegatingByTypeSerializer(serializers)));
+    }
+
+    @Bean
+    public ConsumerFactory<String, OrderEvent> orderConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        // A record that cannot be decoded is handed to the error handler instead of failing every poll
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, OrderEventDeserializer.class);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<String, OrderEvent> orderConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        // Keeps Boot's listener settings, including virtual threads when spring.threads.virtual.enabled is set
+        configurer.configure(factory, (ConsumerFactory) orderConsumerFactory);
+        return factory;
+    }
+
+    @Bean
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> paymentBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<String, OrderEvent> orderConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, (ConsumerFactory) orderConsumerFactory);
+        factory.setBatchListener(true);
+        // Commit the offsets of a poll only after the listener, and so its transaction, returned
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+}
@@ -1,11 +1,18 @@
 package Com.SimpleFlashSaleBackend.SimpleFlashSale.Config;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.SoldOutRegistry;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.StockResetBroadcast;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogGeneration;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Search.CouponSearchIndex;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.RedisWebSocketListener;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.ServerIdGenerator;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.StockUpdatePublisher;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.StockWebSocketHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
@@ -16,7 +23,12 @@ public class RedisConfig {
 
     @Bean
     public RedisMessageListenerContainer redisContainer(RedisConnectionFactory connectionFactory,
-                                                        RedisWebSocketListener listener) {
+                                                        RedisWebSocketListener listener,
+                                                        SoldOutRegistry soldOutRegistry,
+                                                        StockResetBroadcast stockResetBroadcast,
+                                                        CatalogGeneration catalogGeneration,
+                                                        CouponSearchIndex couponSearchIndex,
+                                                        StockWebSocketHandler stockWebSocketHandler) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
 
@@ -27,6 +39,12 @@ public class RedisConfig {
 
         logger.info("✅ Subscribed to Redis channel: " + serverIdChannel);
 
+        container.addMessageListener(soldOutRegistry, new ChannelTopic(SoldOutRegistry.RESTOCK_CHANNEL));
+        container.addMessageListener(stockResetBroadcast, new ChannelTopic(StockResetBroadcast.RESET_CHANNEL));
+        container.addMessageListener(catalogGeneration, new ChannelTopic(CatalogGeneration.INVALIDATE_CHANNEL));
+        container.addMessageListener(couponSearchIndex, new ChannelTopic(CouponSearchIndex.CHANGE_CHANNEL));
+        container.addMessageListener(stockWebSocketHandler, new ChannelTopic(StockUpdatePublisher.STOCK_CHANNEL));
+
         return container;
     }
 }
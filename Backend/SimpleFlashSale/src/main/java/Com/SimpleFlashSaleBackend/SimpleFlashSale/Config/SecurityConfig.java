@@ -37,8 +37,12 @@ public class SecurityConfig {
                         .requestMatchers("/api/public/**").permitAll()
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers("/api/coupons/buy").authenticated()
+                        .requestMatchers("/api/coupons/buy/async").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/users/{userId}").authenticated()
                         .requestMatchers("/api/users/{userId}/coupons").authenticated()
+                        .requestMatchers("/api/admin/**").authenticated()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -2,10 +2,13 @@ package Com.SimpleFlashSaleBackend.SimpleFlashSale.Controller;
 
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Response.Response;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Service.CatalogPageEncoder;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Service.CouponService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -13,10 +16,13 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 public class CouponController {
+    // Every distinct page is a cache entry, so clients may not ask for arbitrarily large ones
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
     private final CouponService couponService;
@@ -32,29 +38,60 @@ public class CouponController {
         return ResponseEntity.status(response.getStatusCode()).body(response);
     }
 
+    // ✅ Served as pre-encoded JSON; Spring answers If-None-Match with 304 from the ETag
     @GetMapping("/coupons")
-    public ResponseEntity<Response<Map<String, Object>>> getCouponsPaginated(
+    public ResponseEntity<byte[]> getCouponsPaginated(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "8") int size) {
 
-        Response<List<CouponDTO>> response = couponService.getCouponsPaginated(page, size);
+        CatalogPageEncoder.Encoded encoded = couponService.getCouponsPaginatedJson(page, size);
 
-        // Get the total pages from the service
-        int totalPages = couponService.getTotalPages(size);
+        // no-cache: browsers keep the body but revalidate it on every poll
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(encoded.etag())
+                .body(encoded.body());
+    }
+
+
+    // ✅ Cursor pagination: pass the nextCursor of the previous response as `after` (0 for the first page)
+    @GetMapping(value = "/coupons", params = "after")
+    public ResponseEntity<Response<Map<String, Object>>> getCouponsAfter(
+            @RequestParam long after,
+            @RequestParam(defaultValue = "8") int size) {
+        if (after < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("after must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Response<List<CouponDTO>> response = couponService.getCouponsAfter(after, size);
+        List<CouponDTO> coupons = response.getData();
 
         Map<String, Object> responseData = new HashMap<>();
-        responseData.put("coupons", response.getData());
-        responseData.put("totalPages", totalPages);
+        responseData.put("coupons", coupons);
+        // A short page means the end of the catalog
+        responseData.put("nextCursor", coupons.size() < size ? null : coupons.get(coupons.size() - 1).getId());
 
         return ResponseEntity.status(response.getStatusCode()).body(new Response<>(response.getStatusCode(), response.getMessage(), responseData));
     }
 
-
-
     // ✅ Search coupons by name
     @GetMapping("/coupons/search")
-    public ResponseEntity<Response<List<CouponDTO>>> searchCoupons(@RequestParam String name) {
-        Response<List<CouponDTO>> response = couponService.searchCoupons(name);
+    public ResponseEntity<Response<List<CouponDTO>>> searchCoupons(@RequestParam String name,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        Response<List<CouponDTO>> response = couponService.searchCoupons(name, page, size);
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    // ✅ Name suggestions while typing
+    @GetMapping("/coupons/autocomplete")
+    public ResponseEntity<Response<List<String>>> autocompleteCoupons(@RequestParam String prefix,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        Response<List<String>> response = couponService.autocompleteCoupons(prefix, limit);
         return ResponseEntity.status(response.getStatusCode()).body(response);
     }
 
@@ -81,4 +118,14 @@ public class CouponController {
 
         return ResponseEntity.status(status).body(response);
     }
+
+    // ✅ Non-blocking buy: the request thread is released while Redis and Kafka do their work
+    @PostMapping("/coupons/buy/async")
+    @PreAuthorize("isAuthenticated()")
+    public CompletableFuture<ResponseEntity<Response<String>>> buyCouponAsync(@RequestParam String userId, @RequestParam Long couponId) {
+        return couponService.buyCouponAsync(userId, couponId).thenApply(response -> {
+            HttpStatus status = (response.getStatusCode() == 200) ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(response);
+        });
+    }
 }
@@ -0,0 +1,42 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Controller;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.ParkedOrderDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Response.Response;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Service.PaymentRecoveryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/payments")
+public class PaymentAdminController {
+    private final PaymentRecoveryService paymentRecoveryService;
+
+    public PaymentAdminController(PaymentRecoveryService paymentRecoveryService) {
+        this.paymentRecoveryService = paymentRecoveryService;
+    }
+
+    // ✅ Orders that exhausted their payment retries
+    @GetMapping("/parked")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Response<List<ParkedOrderDTO>>> getParkedOrders() {
+        Response<List<ParkedOrderDTO>> response = paymentRecoveryService.getParkedOrders();
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    @PostMapping("/parked/{orderId}/replay")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Response<String>> replay(@PathVariable String orderId) {
+        Response<String> response = paymentRecoveryService.replay(orderId);
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+
+    @DeleteMapping("/parked/{orderId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Response<String>> discard(@PathVariable String orderId) {
+        Response<String> response = paymentRecoveryService.discard(orderId);
+        return ResponseEntity.status(response.getStatusCode()).body(response);
+    }
+}
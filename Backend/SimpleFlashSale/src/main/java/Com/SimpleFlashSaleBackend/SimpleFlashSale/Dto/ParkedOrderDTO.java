@@ -0,0 +1,19 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkedOrderDTO {
+    private String orderId;
+    private String userId;
+    private Long couponId;
+    private String serverId;
+    private String error; // Last failure before the order reached the dead-letter topic
+    private long parkedAt;
+}
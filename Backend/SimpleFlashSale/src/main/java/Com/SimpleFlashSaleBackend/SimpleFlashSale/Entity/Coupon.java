@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "coupons")
+@Table(name = "coupons", indexes = @Index(name = "idx_coupons_deleted_id", columnList = "is_deleted, id"))
 public class Coupon{
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,29 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/** Pending coupon quantity decrements, written with each payment and folded into coupons by the write-behind flush. */
+@Entity
+// coupon_id: the seed query sums pending units per coupon and an admin update discards them
+@Table(name = "coupon_quantity_journal", indexes = @Index(name = "idx_journal_coupon", columnList = "coupon_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponQuantityJournal {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "coupon_id", nullable = false)
+    private Long couponId;
+
+    @Column(nullable = false)
+    private int units;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
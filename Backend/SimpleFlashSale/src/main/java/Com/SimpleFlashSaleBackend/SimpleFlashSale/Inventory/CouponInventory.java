@@ -0,0 +1,288 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.LuaScriptRegistry;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Owns the Redis layout of coupon stock.
+ * <p>
+ * With {@code inventory.shards: 1} a coupon uses the single {@code coupon:<id>:quantity} key and the
+ * {@code couponUsers:<id>} buyer set, the layout for a single Redis node. With N > 1 its stock is split over
+ * {@code coupon:{<id>:<n>}:quantity} for n in 0..N-1 and buyers are spread over {@code couponUsers:{<id>:<n>}} by
+ * hashing the user ID. The braces are a literal Redis Cluster hash tag: the stock and buyer keys of one shard share
+ * a slot, so the scripts that get both never fail with CROSSSLOT, while different shards of one hot coupon land on
+ * different slots and nodes. Every script call touches a single shard, never several at once.
+ */
+@Component
+public class CouponInventory {
+    private static final Logger logger = LoggerFactory.getLogger(CouponInventory.class);
+
+    private static final String COUPON_CACHE_PREFIX = "SimpleFlashSale#coupon:";
+    private static final String COUPON_USERS_PREFIX = "SimpleFlashSale#couponUsers:";
+
+    private final RedissonClient redissonClient;
+    private final LuaScriptRegistry luaScriptRegistry;
+    private final StockChangeFeed stockChangeFeed;
+    private final int shards;
+
+    public CouponInventory(RedissonClient redissonClient, LuaScriptRegistry luaScriptRegistry,
+                           StockChangeFeed stockChangeFeed, @Value("${inventory.shards:1}") int shards) {
+        if (shards < 1) throw new IllegalArgumentException("inventory.shards must be at least 1");
+        this.redissonClient = redissonClient;
+        this.luaScriptRegistry = luaScriptRegistry;
+        this.stockChangeFeed = stockChangeFeed;
+        this.shards = shards;
+    }
+
+    /** Reserve one unit for the user: 1 on success, -1 out of stock, -2 already purchased, -3 bad quantity. */
+    public long reserve(String userId, long couponId) {
+        int home = homeShard(userId);
+        List<Object> keys = List.of(quantityKey(couponId, home), buyersKey(couponId, home));
+        Long result = luaScriptRegistry.eval(LuaScriptRegistry.BUY_COUPON, RScript.ReturnType.INTEGER, keys, userId);
+        if (result == 1) stockChangeFeed.markChanged(couponId);
+        if (result != -1 || shards == 1) return result;
+
+        // Home shard is empty: claim the buyer first, then try the sibling shards one by one
+        if (!claimBuyer(userId, couponId)) return -2;
+        for (int i = 1; i < shards; i++) {
+            int shard = (home + i) % shards;
+            if (takeFromShard(couponId, shard, 1) == 1) return 1;
+        }
+        releaseBuyer(userId, couponId);
+        return -1;
+    }
+
+    /** Non-blocking variant of {@link #reserve}. */
+    public CompletionStage<Long> reserveAsync(String userId, long couponId) {
+        int home = homeShard(userId);
+        List<Object> keys = List.of(quantityKey(couponId, home), buyersKey(couponId, home));
+        return luaScriptRegistry.<Long>evalAsync(LuaScriptRegistry.BUY_COUPON, RScript.ReturnType.INTEGER, keys, userId)
+                .thenCompose(result -> {
+                    if (result == 1) stockChangeFeed.markChanged(couponId);
+                    if (result != -1 || shards == 1) return CompletableFuture.completedFuture(result);
+
+                    return claimBuyerAsync(userId, couponId).thenCompose(claimed -> claimed
+                            ? reserveFromSiblingAsync(userId, couponId, home, 1)
+                            : CompletableFuture.completedFuture(-2L));
+                });
+    }
+
+    private CompletionStage<Long> reserveFromSiblingAsync(String userId, long couponId, int home, int offset) {
+        if (offset >= shards) return buyers(userId, couponId).removeAsync(userId).thenApply(removed -> -1L);
+
+        return takeFromShardAsync(couponId, (home + offset) % shards, 1).thenCompose(taken -> taken == 1
+                ? CompletableFuture.completedFuture(1L)
+                : reserveFromSiblingAsync(userId, couponId, home, offset + 1));
+    }
+
+    /** Give a reserved unit back and forget the buyer; returns the restore script result. */
+    public long restore(String userId, long couponId) {
+        int home = homeShard(userId);
+        List<Object> keys = List.of(quantityKey(couponId, home), buyersKey(couponId, home));
+        long result = luaScriptRegistry.<Long>eval(LuaScriptRegistry.RESTORE_STOCK, RScript.ReturnType.INTEGER, keys, userId);
+        stockChangeFeed.markChanged(couponId);
+        return result;
+    }
+
+    /** Non-blocking variant of {@link #restore}. */
+    public CompletionStage<Long> restoreAsync(String userId, long couponId) {
+        int home = homeShard(userId);
+        List<Object> keys = List.of(quantityKey(couponId, home), buyersKey(couponId, home));
+        return luaScriptRegistry.<Long>evalAsync(LuaScriptRegistry.RESTORE_STOCK, RScript.ReturnType.INTEGER, keys, userId)
+                .thenApply(result -> {
+                    stockChangeFeed.markChanged(couponId);
+                    return result;
+                });
+    }
+
+    /** Record the user as a buyer of this coupon; false when they already bought it. */
+    public boolean claimBuyer(String userId, long couponId) {
+        return buyers(userId, couponId).add(userId);
+    }
+
+    public CompletionStage<Boolean> claimBuyerAsync(String userId, long couponId) {
+        return buyers(userId, couponId).addAsync(userId);
+    }
+
+    public void releaseBuyer(String userId, long couponId) {
+        buyers(userId, couponId).remove(userId);
+    }
+
+    /** Take up to {@code units} from the coupon's stock, walking the shards from a random one. */
+    public int take(long couponId, int units) {
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        int taken = 0;
+        for (int i = 0; i < shards && taken < units; i++) {
+            taken += takeFromShard(couponId, (start + i) % shards, units - taken);
+        }
+        return taken;
+    }
+
+    /** Put units back into a random shard. */
+    public void give(long couponId, int units) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        redissonClient.getAtomicLong(quantityKey(couponId, shard)).addAndGet(units);
+        stockChangeFeed.markChanged(couponId);
+    }
+
+    /**
+     * Give back units only if the stock has not been overwritten since {@code epoch} was read. The check and the
+     * increment are separate commands (the epoch and the shard keys may sit on different cluster nodes), so a
+     * reset landing in between can still let one return through; pods also forfeit their leases on the reset
+     * broadcast, which closes that gap for everything they still hold.
+     */
+    public boolean giveIfEpoch(long couponId, int units, long epoch) {
+        if (stockEpoch(couponId) != epoch) return false;
+        give(couponId, units);
+        return true;
+    }
+
+    /** Version of the coupon's stock, moved by every {@link #setQuantity} and {@link #deleteQuantity}. */
+    public long stockEpoch(long couponId) {
+        return redissonClient.getAtomicLong(epochKey(couponId)).get();
+    }
+
+    /** Overwrite the coupon's stock, split as evenly as possible over the shards; returns the new stock epoch. */
+    public long setQuantity(long couponId, int quantity) {
+        // Bumped first: units leased under the old total must not be given back on top of the new one
+        long epoch = redissonClient.getAtomicLong(epochKey(couponId)).incrementAndGet();
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        for (int shard = 0; shard < shards; shard++) {
+            batch.getBucket(quantityKey(couponId, shard), StringCodec.INSTANCE)
+                    .setAsync(String.valueOf(share(quantity, shard)));
+        }
+        batch.execute();
+        stockChangeFeed.markChanged(couponId);
+        return epoch;
+    }
+
+    /**
+     * Seed the shards missing from Redis, expiring after the given TTL. Each shard is only written if still absent
+     * (SET NX), so a seed never overwrites a shard another reader seeded first and buyers already took from; read
+     * the stock again afterwards rather than trusting {@code quantity}.
+     */
+    public void seedQuantity(long couponId, int quantity, Duration ttl) {
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        for (int shard = 0; shard < shards; shard++) {
+            batch.getBucket(quantityKey(couponId, shard), StringCodec.INSTANCE)
+                    .setIfAbsentAsync(String.valueOf(share(quantity, shard)), ttl);
+        }
+        batch.execute();
+    }
+
+    /** Remove the coupon's stock; returns the new stock epoch. */
+    public long deleteQuantity(long couponId) {
+        long epoch = redissonClient.getAtomicLong(epochKey(couponId)).incrementAndGet();
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        for (int shard = 0; shard < shards; shard++) {
+            batch.getBucket(quantityKey(couponId, shard), StringCodec.INSTANCE).deleteAsync();
+        }
+        batch.execute();
+        return epoch;
+    }
+
+    /**
+     * Read the live stock of several coupons in one pipelined round trip, summing the shards.
+     * Coupons with a missing shard are left out of the result.
+     */
+    public Map<Long, Integer> getQuantities(Collection<Long> couponIds) {
+        if (couponIds.isEmpty()) return Map.of();
+
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        Map<Long, List<RFuture<String>>> reads = new LinkedHashMap<>();
+        for (Long couponId : couponIds) {
+            List<RFuture<String>> shardReads = new ArrayList<>(shards);
+            for (int shard = 0; shard < shards; shard++) {
+                shardReads.add(batch.<String>getBucket(quantityKey(couponId, shard), StringCodec.INSTANCE).getAsync());
+            }
+            reads.put(couponId, shardReads);
+        }
+        batch.execute();
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        reads.forEach((couponId, shardReads) -> {
+            int total = 0;
+            for (RFuture<String> read : shardReads) {
+                String value = read.toCompletableFuture().getNow(null);
+                if (value == null) return;
+                total += Integer.parseInt(value);
+            }
+            quantities.put(couponId, total);
+        });
+        return quantities;
+    }
+
+    /** Part of {@code quantity} held by the shard, split as evenly as possible. */
+    private int share(int quantity, int shard) {
+        return quantity / shards + (shard < quantity % shards ? 1 : 0);
+    }
+
+    private int takeFromShard(long couponId, int shard, int units) {
+        List<Object> keys = List.of(quantityKey(couponId, shard));
+        Long granted = luaScriptRegistry.eval(LuaScriptRegistry.TAKE_STOCK, RScript.ReturnType.INTEGER, keys, String.valueOf(units));
+        if (granted == -3) {
+            logger.warn("⚠️ Redis returned a non-integer for {}", keys.get(0));
+            return 0;
+        }
+        if (granted > 0) stockChangeFeed.markChanged(couponId);
+        return granted.intValue();
+    }
+
+    private CompletionStage<Integer> takeFromShardAsync(long couponId, int shard, int units) {
+        List<Object> keys = List.of(quantityKey(couponId, shard));
+        return luaScriptRegistry.<Long>evalAsync(LuaScriptRegistry.TAKE_STOCK, RScript.ReturnType.INTEGER, keys, String.valueOf(units))
+                .thenApply(granted -> {
+                    if (granted == -3) return 0;
+                    if (granted > 0) stockChangeFeed.markChanged(couponId);
+                    return granted.intValue();
+                });
+    }
+
+    private RSet<String> buyers(String userId, long couponId) {
+        return redissonClient.getSet(buyersKey(couponId, homeShard(userId)), StringCodec.INSTANCE);
+    }
+
+    private int homeShard(String userId) {
+        return Math.floorMod(userId.hashCode(), shards);
+    }
+
+    private String quantityKey(long couponId, int shard) {
+        return shards == 1
+                ? COUPON_CACHE_PREFIX + couponId + ":quantity"
+                : COUPON_CACHE_PREFIX + shardTag(couponId, shard) + ":quantity";
+    }
+
+    private String epochKey(long couponId) {
+        return COUPON_CACHE_PREFIX + couponId + ":stockEpoch";
+    }
+
+    private String buyersKey(long couponId, int shard) {
+        return shards == 1 ? COUPON_USERS_PREFIX + couponId : COUPON_USERS_PREFIX + shardTag(couponId, shard);
+    }
+
+    /** Hash tag shared by the stock and buyer keys of one shard. */
+    private static String shardTag(long couponId, int shard) {
+        return "{" + couponId + ":" + shard + "}";
+    }
+}
@@ -0,0 +1,111 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write-behind of the MySQL coupon quantity.
+ * <p>
+ * Payments append their decrement to {@code coupon_quantity_journal} inside their own transaction, which is an
+ * insert with no contention instead of an UPDATE on the hot coupon row. A scheduled flush folds the journal into
+ * one {@code quantity = quantity - ?} per coupon and deletes the folded entries in the same transaction, so a
+ * crash at any point neither loses nor double-applies a decrement, and any pod can pick up what another left.
+ */
+@Component
+public class CouponQuantityWriteBehind {
+    private static final Logger logger = LoggerFactory.getLogger(CouponQuantityWriteBehind.class);
+
+    private static final String INSERT_ENTRY = "INSERT INTO coupon_quantity_journal (coupon_id, units, created_at) VALUES (?, ?, ?)";
+    // Plain read: a locking range scan would also lock the gap after the last entry and block new sales' inserts
+    private static final String PEEK_ENTRY_IDS = "SELECT id FROM coupon_quantity_journal ORDER BY id LIMIT ?";
+    // Record locks on the peeked IDs only. A concurrent flush on another pod waits here and then no longer sees the
+    // entries folded by this one
+    private static final String LOCK_ENTRIES = "SELECT id, coupon_id, units FROM coupon_quantity_journal WHERE id IN (%s) FOR UPDATE";
+    private static final String DELETE_ENTRY = "DELETE FROM coupon_quantity_journal WHERE id = ?";
+    private static final String DELETE_COUPON_ENTRIES = "DELETE FROM coupon_quantity_journal WHERE coupon_id = ?";
+    private static final String DECREMENT_QUANTITY = "UPDATE coupons SET quantity = quantity - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxEntriesPerFlush;
+
+    public CouponQuantityWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                     @Value("${inventory.quantity-flush.max-entries:5000}") int maxEntriesPerFlush) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxEntriesPerFlush = maxEntriesPerFlush;
+    }
+
+    /** Journal sold units; must run inside the payment transaction so both commit or roll back together. */
+    public void recordSold(long couponId, int units) {
+        jdbcTemplate.update(INSERT_ENTRY, couponId, units, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /** Batch variant of {@link #recordSold}, one journal row per coupon. */
+    public void recordSold(Map<Long, Integer> unitsPerCoupon) {
+        if (unitsPerCoupon.isEmpty()) return;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, unitsPerCoupon.entrySet().stream()
+                .map(sold -> new Object[]{sold.getKey(), sold.getValue(), now})
+                .toList());
+    }
+
+    /** Drop pending decrements of a coupon whose quantity was just overwritten by an admin. */
+    public void discard(long couponId) {
+        jdbcTemplate.update(DELETE_COUPON_ENTRIES, couponId);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.quantity-flush.interval-ms:1000}")
+    public void flush() {
+        try {
+            int peeked;
+            do {
+                peeked = transactionTemplate.execute(status -> flushOnce());
+            } while (peeked == maxEntriesPerFlush);
+        } catch (Exception e) {
+            // Entries stay in the journal and are picked up by the next run
+            logger.error("❌ Failed to flush coupon quantities: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /** Folds up to {@code maxEntriesPerFlush} entries; returns how many were seen, folded here or by another pod. */
+    private int flushOnce() {
+        List<Long> peeked = jdbcTemplate.queryForList(PEEK_ENTRY_IDS, Long.class, maxEntriesPerFlush);
+        if (peeked.isEmpty()) return 0;
+
+        Map<Long, Integer> unitsPerCoupon = new HashMap<>();
+        String placeholders = String.join(",", Collections.nCopies(peeked.size(), "?"));
+        List<Object[]> entryIds = jdbcTemplate.query(String.format(LOCK_ENTRIES, placeholders), (rs, rowNum) -> {
+            unitsPerCoupon.merge(rs.getLong("coupon_id"), rs.getInt("units"), Integer::sum);
+            return new Object[]{rs.getLong("id")};
+        }, peeked.toArray());
+        if (entryIds.isEmpty()) return peeked.size(); // All folded by a concurrent flush
+
+        jdbcTemplate.batchUpdate(DECREMENT_QUANTITY, unitsPerCoupon.entrySet().stream()
+                .map(sold -> new Object[]{sold.getValue(), sold.getKey()})
+                .toList());
+        jdbcTemplate.batchUpdate(DELETE_ENTRY, entryIds);
+
+        logger.info("💾 Flushed {} journaled sales into {} coupon rows", entryIds.size(), unitsPerCoupon.size());
+        return peeked.size();
+    }
+}
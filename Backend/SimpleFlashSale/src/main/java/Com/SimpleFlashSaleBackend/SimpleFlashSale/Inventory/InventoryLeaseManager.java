@@ -0,0 +1,213 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node-local inventory leasing: each pod takes blocks of stock from the central Redis counter and serves
+ * buys from an in-JVM counter. Every unit handed out locally was removed from Redis first, so the sale can
+ * never oversell; a crashed pod can only undersell by the units it was still holding.
+ * <p>
+ * Each lease remembers the stock epoch it was granted under. When an admin overwrites the stock, leases from
+ * the old epoch are forfeited rather than given back, so they never add to the new total.
+ */
+@Component
+public class InventoryLeaseManager {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLeaseManager.class);
+
+    private final StockLeaseSource leaseSource;
+    private final Executor refillExecutor;
+    private final boolean enabled;
+    private final int blockSize;
+    private final int refillThreshold;
+    private final long ttlNanos;
+
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    public InventoryLeaseManager(StockLeaseSource leaseSource,
+                                 @Qualifier("inventoryLeaseExecutor") Executor refillExecutor,
+                                 @Value("${inventory.lease.enabled:false}") boolean enabled,
+                                 @Value("${inventory.lease.block-size:200}") int blockSize,
+                                 @Value("${inventory.lease.refill-threshold:50}") int refillThreshold,
+                                 @Value("${inventory.lease.ttl-seconds:30}") long ttlSeconds) {
+        this.leaseSource = leaseSource;
+        this.refillExecutor = refillExecutor;
+        this.enabled = enabled;
+        this.blockSize = blockSize;
+        this.refillThreshold = refillThreshold;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Take one unit of stock for this coupon, leasing a new block when the local one is empty. */
+    public boolean tryAcquire(long couponId) {
+        while (true) {
+            Lease lease = leases.computeIfAbsent(couponId, id -> new Lease());
+            int remaining = lease.remaining.get();
+            if (remaining > 0) {
+                if (lease.remaining.compareAndSet(remaining, remaining - 1)) {
+                    lease.lastUsed = System.nanoTime();
+                    if (remaining - 1 <= refillThreshold) refillAhead(couponId, lease);
+                    return true;
+                }
+                continue;
+            }
+
+            // Local block is empty: only one thread goes to Redis, the others wait for its grant
+            lease.grantLock.lock();
+            try {
+                if (lease.retired) continue; // expired or forfeited meanwhile: start over with the live entry
+                if (lease.remaining.get() > 0) continue;
+                if (!grant(couponId, lease)) return false;
+            } finally {
+                lease.grantLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Put back a unit taken by {@link #tryAcquire} that ended up not being sold. If its lease is gone (forfeited
+     * by a stock reset, or expired) the unit is dropped: it may belong to a total that no longer exists.
+     */
+    public void release(long couponId) {
+        Lease lease = leases.get(couponId);
+        if (lease != null && !lease.retired) {
+            lease.remaining.incrementAndGet();
+        } else {
+            logger.info("🗑️ Dropped a released unit of coupon {}: its lease is gone", couponId);
+        }
+    }
+
+    /**
+     * The coupon's stock was overwritten ({@code epoch} is the new stock epoch): drop what this node still holds
+     * for it without giving it back, since it was carved out of the old total.
+     */
+    public void forfeit(long couponId, long epoch) {
+        Lease lease = leases.get(couponId);
+        if (lease == null) return;
+
+        lease.grantLock.lock();
+        try {
+            if (lease.retired || lease.epoch >= epoch) return; // already leasing from the new stock
+            retire(couponId, lease);
+            int dropped = lease.remaining.getAndSet(0);
+            logger.info("🗑️ Forfeited lease for coupon {} after a stock reset, dropped {} units", couponId, dropped);
+        } finally {
+            lease.grantLock.unlock();
+        }
+    }
+
+    // Called with the lease's grantLock held
+    private boolean grant(long couponId, Lease lease) {
+        // Read before taking: if a reset lands in between, the units look older than they are and are only
+        // ever dropped, never given back on top of the new total
+        long epoch = leaseSource.epoch(couponId);
+        int granted = leaseSource.grant(couponId, blockSize);
+        if (granted <= 0) return false;
+
+        if (epoch != lease.epoch) {
+            // Units still held from an older epoch were carved out of a total that has been replaced
+            lease.remaining.getAndSet(0);
+            lease.epoch = epoch;
+        }
+        lease.remaining.addAndGet(granted);
+        lease.lastUsed = System.nanoTime();
+        return true;
+    }
+
+    private void refillAhead(long couponId, Lease lease) {
+        if (!lease.refilling.compareAndSet(false, true)) return;
+
+        try {
+            refillExecutor.execute(() -> refill(couponId, lease));
+        } catch (RejectedExecutionException e) {
+            lease.refilling.set(false);
+        }
+    }
+
+    private void refill(long couponId, Lease lease) {
+        lease.grantLock.lock();
+        try {
+            if (lease.retired || lease.remaining.get() > refillThreshold) return;
+            grant(couponId, lease);
+        } catch (Exception e) {
+            logger.error("❌ Failed to refill lease for coupon {}: {}", couponId, e.getMessage());
+        } finally {
+            lease.grantLock.unlock();
+            lease.refilling.set(false);
+        }
+    }
+
+    /**
+     * Hand back the units of leases nobody bought from within the TTL and forget them. A hot coupon keeps its
+     * lease however old the grant is; sold-out and deleted coupons drop out of the map this way.
+     */
+    @Scheduled(fixedDelayString = "${inventory.lease.expiry-check-ms:5000}")
+    public void returnExpiredLeases() {
+        leases.forEach((couponId, lease) -> {
+            if (System.nanoTime() - lease.lastUsed <= ttlNanos) return;
+
+            lease.grantLock.lock();
+            try {
+                if (lease.retired || System.nanoTime() - lease.lastUsed <= ttlNanos) return; // bought from meanwhile
+                if (returnUnused(couponId, lease)) retire(couponId, lease);
+            } finally {
+                lease.grantLock.unlock();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void returnAllLeases() {
+        leases.forEach(this::returnUnused);
+    }
+
+    private void retire(long couponId, Lease lease) {
+        lease.retired = true;
+        leases.remove(couponId, lease);
+    }
+
+    /** False when Redis could not be reached; the units stay in the lease for the next attempt. */
+    private boolean returnUnused(long couponId, Lease lease) {
+        // getAndSet races safely with tryAcquire's CAS: each unit is either sold or returned, never both
+        int unused = lease.remaining.getAndSet(0);
+        if (unused <= 0) return true;
+
+        try {
+            if (leaseSource.release(couponId, unused, lease.epoch)) {
+                logger.info("🔄 Released lease for coupon {}, returned {} units", couponId, unused);
+            }
+            return true;
+        } catch (Exception e) {
+            lease.remaining.addAndGet(unused);
+            logger.error("❌ Failed to return lease for coupon {}: {}", couponId, e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class Lease {
+        private final AtomicInteger remaining = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final ReentrantLock grantLock = new ReentrantLock();
+        private volatile long epoch = -1;
+        private volatile long lastUsed = System.nanoTime();
+        private volatile boolean retired;
+    }
+}
@@ -0,0 +1,41 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RedisStockLeaseSource implements StockLeaseSource {
+    private static final Logger logger = LoggerFactory.getLogger(RedisStockLeaseSource.class);
+
+    private final CouponInventory couponInventory;
+    private final SoldOutRegistry soldOutRegistry;
+
+    public RedisStockLeaseSource(CouponInventory couponInventory, SoldOutRegistry soldOutRegistry) {
+        this.couponInventory = couponInventory;
+        this.soldOutRegistry = soldOutRegistry;
+    }
+
+    @Override
+    public long epoch(long couponId) {
+        return couponInventory.stockEpoch(couponId);
+    }
+
+    @Override
+    public int grant(long couponId, int units) {
+        int granted = couponInventory.take(couponId, units);
+        logger.info("📦 Leased {} units of coupon {} from Redis", granted, couponId);
+        return granted;
+    }
+
+    @Override
+    public boolean release(long couponId, int units, long epoch) {
+        if (!couponInventory.giveIfEpoch(couponId, units, epoch)) {
+            logger.info("🗑️ Dropped {} leased units of coupon {}: stock was reset since they were leased", units, couponId);
+            return false;
+        }
+        soldOutRegistry.publishRestock(couponId);
+        logger.info("🔄 Returned {} leased units of coupon {} to Redis", units, couponId);
+        return true;
+    }
+}
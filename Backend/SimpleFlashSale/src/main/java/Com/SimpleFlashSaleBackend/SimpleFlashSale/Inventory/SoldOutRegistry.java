@@ -0,0 +1,76 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local memory of coupons that Redis reported as sold out, so further buys are rejected without any I/O.
+ * Entries are dropped cluster-wide through a Redis channel whenever stock is put back, and expire on their own
+ * as a safety net for lost pub/sub messages.
+ */
+@Component
+public class SoldOutRegistry implements MessageListener {
+    public static final String RESTOCK_CHANNEL = "SimpleFlashSale#coupon-restocked";
+
+    private static final Logger logger = LoggerFactory.getLogger(SoldOutRegistry.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<Long, Boolean> soldOut;
+
+    // Bumped on every restock so a buy that raced with it cannot mark the coupon sold out afterwards
+    private final AtomicLong restockEpoch = new AtomicLong();
+
+    public SoldOutRegistry(StringRedisTemplate redisTemplate,
+                           @Value("${inventory.sold-out.ttl-seconds:30}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.soldOut = Caffeine.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public boolean isSoldOut(long couponId) {
+        return soldOut.getIfPresent(couponId) != null;
+    }
+
+    /** Epoch to pass to {@link #markSoldOut} once Redis has answered. */
+    public long epoch() {
+        return restockEpoch.get();
+    }
+
+    public void markSoldOut(long couponId, long epochSeen) {
+        if (restockEpoch.get() != epochSeen) return;
+        soldOut.put(couponId, Boolean.TRUE);
+        logger.info("🚫 Coupon {} marked as sold out on this node", couponId);
+    }
+
+    /** Stock was put back: clear the flag here and on every other node. */
+    public void publishRestock(long couponId) {
+        clear(couponId);
+        redisTemplate.convertAndSend(RESTOCK_CHANNEL, String.valueOf(couponId));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            clear(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ Ignoring malformed restock message: {}", e.getMessage());
+        }
+    }
+
+    private void clear(long couponId) {
+        restockEpoch.incrementAndGet();
+        soldOut.invalidate(couponId);
+    }
+}
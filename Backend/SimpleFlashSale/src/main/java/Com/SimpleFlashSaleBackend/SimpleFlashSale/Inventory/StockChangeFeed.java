@@ -0,0 +1,32 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coupons whose Redis stock changed on this node since the last drain. Many changes to one coupon collapse into a
+ * single entry, so whoever drains it reads the stock once per coupon per interval, whatever the buy rate.
+ */
+@Component
+public class StockChangeFeed {
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    public void markChanged(long couponId) {
+        changed.add(couponId);
+    }
+
+    /** Take every coupon marked since the last call. */
+    public List<Long> drain() {
+        List<Long> drained = new ArrayList<>();
+        for (Iterator<Long> it = changed.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+}
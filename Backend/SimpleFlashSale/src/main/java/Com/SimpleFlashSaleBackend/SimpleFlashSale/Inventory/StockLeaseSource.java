@@ -0,0 +1,17 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+/** Central stock that node-local leases are carved out of. */
+public interface StockLeaseSource {
+
+    /** Version of the coupon's stock; it changes whenever an admin overwrites the total. */
+    long epoch(long couponId);
+
+    /** Take up to {@code units} from the central counter; returns how many were granted (0 when sold out). */
+    int grant(long couponId, int units);
+
+    /**
+     * Give unused units back to the central counter, unless the stock was overwritten since they were granted
+     * ({@code epoch} no longer current); such units are forfeited and false is returned.
+     */
+    boolean release(long couponId, int units, long epoch);
+}
@@ -0,0 +1,47 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tells every pod that a coupon's stock was overwritten, so each one forfeits the units it leased from the old
+ * total. Messages carry the new stock epoch ({@code couponId:epoch}); a pod that already leases under that epoch
+ * ignores them, and a lost message is covered by the epoch check on every lease return.
+ */
+@Component
+public class StockResetBroadcast implements MessageListener {
+    public static final String RESET_CHANNEL = "SimpleFlashSale#coupon-stock-reset";
+
+    private static final Logger logger = LoggerFactory.getLogger(StockResetBroadcast.class);
+
+    private final InventoryLeaseManager inventoryLeaseManager;
+    private final StringRedisTemplate redisTemplate;
+
+    public StockResetBroadcast(InventoryLeaseManager inventoryLeaseManager, StringRedisTemplate redisTemplate) {
+        this.inventoryLeaseManager = inventoryLeaseManager;
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void publish(long couponId, long epoch) {
+        inventoryLeaseManager.forfeit(couponId, epoch);
+        redisTemplate.convertAndSend(RESET_CHANNEL, couponId + ":" + epoch);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            int separator = body.indexOf(':');
+            inventoryLeaseManager.forfeit(Long.parseLong(body.substring(0, separator)),
+                    Long.parseLong(body.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Ignoring malformed stock reset message: {}", body);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/** An order placed by buyCoupon, waiting for payment on the payment topic. */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OrderEvent {
+    private final UUID orderId;
+    private final String userId;
+    private final long couponId;
+    private final String serverId; // Node holding the buyer's WebSocket
+}
@@ -0,0 +1,66 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Reads the layout written by {@link OrderEventSerializer}.
+ * <p>
+ * Also accepts the old {@code orderId,userId,couponId,serverId} text records, so orders produced before the
+ * binary codec was rolled out are still paid. They start with a hex digit of the order UUID, never with a
+ * version byte. Remove once no producer writes the text format and the topic has been drained.
+ */
+public class OrderEventDeserializer implements Deserializer<OrderEvent> {
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        if (data == null) return null;
+
+        try {
+            if (isLegacyText(data)) return readLegacyText(topic, data);
+
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            byte version = buffer.get();
+            if (version != OrderEventSerializer.VERSION_1) {
+                throw new SerializationException("Unsupported order event version: " + version);
+            }
+
+            UUID orderId = new UUID(buffer.getLong(), buffer.getLong());
+            long couponId = buffer.getLong();
+            String userId = readString(buffer);
+            String serverId = readString(buffer);
+            return new OrderEvent(orderId, userId, couponId, serverId);
+        } catch (BufferUnderflowException e) {
+            throw new SerializationException("Truncated order event on topic " + topic, e);
+        }
+    }
+
+    private static boolean isLegacyText(byte[] data) {
+        return data.length > 0 && Character.digit(data[0], 16) >= 0;
+    }
+
+    private static OrderEvent readLegacyText(String topic, byte[] data) {
+        String[] fields = new String(data, StandardCharsets.UTF_8).split(",");
+        if (fields.length != 4) {
+            throw new SerializationException("Malformed text order event on topic " + topic);
+        }
+        try {
+            return new OrderEvent(UUID.fromString(fields[0]), fields[1], Long.parseLong(fields[2]), fields[3]);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Malformed text order event on topic " + topic, e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) throw new SerializationException("Corrupt order event field length: " + length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
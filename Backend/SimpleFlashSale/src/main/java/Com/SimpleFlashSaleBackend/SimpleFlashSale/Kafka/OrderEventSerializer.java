@@ -0,0 +1,38 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link OrderEvent}.
+ * <pre>
+ * v1: version:byte | orderId:16 bytes | couponId:long | userId:short-prefixed UTF-8 | serverId:short-prefixed UTF-8
+ * </pre>
+ * The leading version byte lets the layout evolve while old records are still on the topic.
+ */
+public class OrderEventSerializer implements Serializer<OrderEvent> {
+    public static final byte VERSION_1 = 1;
+
+    @Override
+    public byte[] serialize(String topic, OrderEvent event) {
+        if (event == null) return null;
+
+        byte[] userId = event.getUserId().getBytes(StandardCharsets.UTF_8);
+        byte[] serverId = event.getServerId().getBytes(StandardCharsets.UTF_8);
+        if (userId.length > Short.MAX_VALUE || serverId.length > Short.MAX_VALUE) {
+            throw new SerializationException("Order event field too long: " + event.getOrderId());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 16 + 8 + 2 + userId.length + 2 + serverId.length);
+        buffer.put(VERSION_1);
+        buffer.putLong(event.getOrderId().getMostSignificantBits());
+        buffer.putLong(event.getOrderId().getLeastSignificantBits());
+        buffer.putLong(event.getCouponId());
+        buffer.putShort((short) userId.length).put(userId);
+        buffer.putShort((short) serverId.length).put(serverId);
+        return buffer.array();
+    }
+}
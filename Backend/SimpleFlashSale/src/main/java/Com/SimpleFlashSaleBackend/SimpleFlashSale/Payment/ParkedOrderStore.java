@@ -0,0 +1,63 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.ParkedOrderDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/** Orders that exhausted their payment retries, kept in one Redis hash until an admin replays or discards them. */
+@Component
+public class ParkedOrderStore {
+    private static final String PARKED_ORDERS_KEY = "SimpleFlashSale#payment:parked";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ParkedOrderStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void park(ParkedOrderDTO order) {
+        try {
+            hash().put(PARKED_ORDERS_KEY, order.getOrderId(), objectMapper.writeValueAsString(order));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize parked order " + order.getOrderId(), e);
+        }
+    }
+
+    public Optional<ParkedOrderDTO> get(String orderId) {
+        return Optional.ofNullable(hash().get(PARKED_ORDERS_KEY, orderId)).map(this::read);
+    }
+
+    public List<ParkedOrderDTO> getAll() {
+        List<ParkedOrderDTO> orders = new ArrayList<>();
+        for (String json : hash().values(PARKED_ORDERS_KEY)) orders.add(read(json));
+        orders.sort(Comparator.comparingLong(ParkedOrderDTO::getParkedAt));
+        return orders;
+    }
+
+    /** Returns false when the order was not parked, e.g. already replayed by another admin. */
+    public boolean remove(String orderId) {
+        return hash().delete(PARKED_ORDERS_KEY, orderId) > 0;
+    }
+
+    private ParkedOrderDTO read(String json) {
+        try {
+            return objectMapper.readValue(json, ParkedOrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt parked order: " + json, e);
+        }
+    }
+
+    private HashOperations<String, String, String> hash() {
+        return redisTemplate.opsForHash();
+    }
+}
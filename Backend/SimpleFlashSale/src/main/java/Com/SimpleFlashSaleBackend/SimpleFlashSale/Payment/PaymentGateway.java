@@ -0,0 +1,19 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEvent;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * External payment step of an order. Implementations must not block the caller: the returned future completes
+ * when the gateway answers, so waiting payments hold no thread.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Completes with the gateway's decision, or exceptionally when the gateway could not be reached. A charge
+     * repeated with the same idempotency key (a retried or redelivered order) returns the first decision instead
+     * of charging again.
+     */
+    CompletableFuture<PaymentResult> charge(OrderEvent order, String idempotencyKey);
+}
@@ -0,0 +1,13 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment;
+
+/** Decision of a {@link PaymentGateway}; {@code reason} is set when the charge was declined. */
+public record PaymentResult(boolean approved, String reason) {
+
+    public static PaymentResult success() {
+        return new PaymentResult(true, null);
+    }
+
+    public static PaymentResult declined(String reason) {
+        return new PaymentResult(false, reason);
+    }
+}
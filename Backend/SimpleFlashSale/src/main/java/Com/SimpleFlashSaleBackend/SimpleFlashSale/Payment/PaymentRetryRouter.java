@@ -0,0 +1,34 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Service.PaymentPipeline;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.DestinationTopicResolver;
+import org.springframework.kafka.retrytopic.RetryTopicBeanNames;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards a failed payment record to its next retry topic, or to the dead-letter topic after the last attempt.
+ * <p>
+ * The payment listener acknowledges records asynchronously, and spring-kafka 3.2.0 only logs a failed async
+ * result instead of passing it to the container error handler that normally drives {@code @RetryableTopic}.
+ * This does the same forwarding from the listener itself, using the retry topic configuration of that listener,
+ * so the backoff and attempt headers are exactly those the retry containers expect.
+ */
+@Component
+public class PaymentRetryRouter {
+    private final DeadLetterPublishingRecoverer recoverer;
+
+    public PaymentRetryRouter(@Qualifier(RetryTopicBeanNames.DESTINATION_TOPIC_RESOLVER_BEAN_NAME)
+                              DestinationTopicResolver destinationTopicResolver) {
+        this.recoverer = new DeadLetterPublishingRecovererFactory(destinationTopicResolver)
+                .create(PaymentPipeline.PAYMENT_LISTENER_ID);
+    }
+
+    /** Publishes the record to its next destination; throws when the send fails. */
+    public void forward(ConsumerRecord<?, ?> record, Exception cause) {
+        recoverer.accept(record, null, cause);
+    }
+}
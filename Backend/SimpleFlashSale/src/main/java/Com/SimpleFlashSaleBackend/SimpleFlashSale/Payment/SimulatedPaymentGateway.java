@@ -0,0 +1,108 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a payment provider. Each charge is answered on a single scheduler thread after a latency
+ * drawn from the configured distribution, so any number of payments can wait at once without a thread each.
+ * <ul>
+ *   <li>{@code fixed}: always {@code latency-ms}</li>
+ *   <li>{@code uniform}: between {@code min-latency-ms} and {@code max-latency-ms}</li>
+ *   <li>{@code exponential}: mean {@code latency-ms}, capped at {@code max-latency-ms}</li>
+ * </ul>
+ * {@code decline-rate} and {@code error-rate} are the fractions of charges declined or failed with an error.
+ */
+@Component
+public class SimulatedPaymentGateway implements PaymentGateway {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedPaymentGateway.class);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PaymentGateway-");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String distribution;
+    private final long latencyMs;
+    private final long minLatencyMs;
+    private final long maxLatencyMs;
+    private final double declineRate;
+    private final double errorRate;
+
+    // Decisions by idempotency key, like a provider's own charge deduplication
+    private final Cache<String, CompletableFuture<PaymentResult>> decisions = Caffeine.newBuilder()
+            .expireAfterWrite(24, TimeUnit.HOURS)
+            .maximumSize(1_000_000)
+            .build();
+
+    public SimulatedPaymentGateway(@Value("${payment.gateway.simulator.distribution:fixed}") String distribution,
+                                   @Value("${payment.gateway.simulator.latency-ms:3000}") long latencyMs,
+                                   @Value("${payment.gateway.simulator.min-latency-ms:0}") long minLatencyMs,
+                                   @Value("${payment.gateway.simulator.max-latency-ms:10000}") long maxLatencyMs,
+                                   @Value("${payment.gateway.simulator.decline-rate:0}") double declineRate,
+                                   @Value("${payment.gateway.simulator.error-rate:0}") double errorRate) {
+        if (!distribution.equals("fixed") && !distribution.equals("uniform") && !distribution.equals("exponential")) {
+            throw new IllegalArgumentException("Unknown payment latency distribution: " + distribution);
+        }
+        this.distribution = distribution;
+        this.latencyMs = latencyMs;
+        this.minLatencyMs = minLatencyMs;
+        this.maxLatencyMs = maxLatencyMs;
+        this.declineRate = declineRate;
+        this.errorRate = errorRate;
+        logger.info("💳 Simulated payment gateway: {} latency {} ms, decline rate {}, error rate {}",
+                distribution, latencyMs, declineRate, errorRate);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> charge(OrderEvent order, String idempotencyKey) {
+        CompletableFuture<PaymentResult> result = decisions.get(idempotencyKey, key -> decide());
+        // Only a decision is final; a charge that could not be processed may be tried again
+        result.whenComplete((decision, e) -> {
+            if (e != null) decisions.asMap().remove(idempotencyKey, result);
+        });
+        return result;
+    }
+
+    private CompletableFuture<PaymentResult> decide() {
+        CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < errorRate) {
+                result.completeExceptionally(new IllegalStateException("Payment gateway unavailable"));
+            } else if (roll < errorRate + declineRate) {
+                result.complete(PaymentResult.declined("Card declined."));
+            } else {
+                result.complete(PaymentResult.success());
+            }
+        }, nextLatencyMs(), TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    long nextLatencyMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (distribution) {
+            case "uniform" -> minLatencyMs >= maxLatencyMs ? minLatencyMs : random.nextLong(minLatencyMs, maxLatencyMs + 1);
+            case "exponential" -> Math.min(maxLatencyMs, (long) (-latencyMs * Math.log(1 - random.nextDouble())));
+            default -> latencyMs;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog generation number embedded in every page cache key. A coupon write bumps it in Redis, which makes
+ * every cached page unreachable at once; the old entries simply age out. The new number is broadcast so each
+ * pod switches keys and empties its Caffeine copy immediately, and a periodic re-read covers lost messages.
+ */
+@Component
+public class CatalogGeneration implements MessageListener {
+    public static final String INVALIDATE_CHANNEL = "SimpleFlashSale#catalog-invalidated";
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogGeneration.class);
+
+    private static final String GENERATION_KEY = "SimpleFlashSale#catalog:generation";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<CatalogPage, List<CouponDTO>> localCouponCache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CatalogGeneration(StringRedisTemplate redisTemplate, Cache<CatalogPage, List<CouponDTO>> localCouponCache) {
+        this.redisTemplate = redisTemplate;
+        this.localCouponCache = localCouponCache;
+    }
+
+    public long current() {
+        return generation.get();
+    }
+
+    /** Move the catalog to a new generation, after the surrounding transaction commits if there is one. */
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Bumping before commit would let another pod cache the old rows under the new generation
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpNow();
+                }
+            });
+        } else {
+            bumpNow();
+        }
+    }
+
+    private void bumpNow() {
+        Long next = redisTemplate.opsForValue().increment(GENERATION_KEY);
+        if (next == null) return;
+        advanceTo(next);
+        redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(next));
+        logger.info("🔄 Catalog moved to generation {}", next);
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${cache.catalog.generation-sync-ms:5000}")
+    public void sync() {
+        try {
+            String stored = redisTemplate.opsForValue().get(GENERATION_KEY);
+            if (stored == null) {
+                // Redis lost the counter (flush / new instance): never let it restart below what pods have seen
+                redisTemplate.opsForValue().setIfAbsent(GENERATION_KEY, String.valueOf(generation.get()));
+                return;
+            }
+            advanceTo(Long.parseLong(stored));
+        } catch (Exception e) {
+            logger.warn("⚠️ Failed to read catalog generation from Redis: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            advanceTo(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ Ignoring malformed catalog invalidation: {}", e.getMessage());
+        }
+    }
+
+    // Only ever moves forward, so a late message cannot bring back a generation that was already left
+    private void advanceTo(long next) {
+        long previous = generation.getAndAccumulate(next, Math::max);
+        if (next > previous) localCouponCache.invalidateAll();
+    }
+}
@@ -0,0 +1,37 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis;
+
+/**
+ * Key of one cached catalog page: a page number or a keyset cursor, in a given catalog generation.
+ * {@link #cacheKey()} is the matching Redis key.
+ */
+public record CatalogPage(Kind kind, long generation, long position, int size) {
+    private static final String CATALOG_PREFIX = "SimpleFlashSale#coupon:catalog:";
+
+    public enum Kind {
+        PAGE("page"),
+        AFTER("after");
+
+        private final String segment;
+
+        Kind(String segment) {
+            this.segment = segment;
+        }
+    }
+
+    public static CatalogPage page(long generation, int page, int size) {
+        return new CatalogPage(Kind.PAGE, generation, page, size);
+    }
+
+    public static CatalogPage after(long generation, long after, int size) {
+        return new CatalogPage(Kind.AFTER, generation, after, size);
+    }
+
+    public String cacheKey() {
+        return CATALOG_PREFIX + kind.segment + ":" + generation + ":" + position + ":size:" + size;
+    }
+
+    @Override
+    public String toString() {
+        return kind.segment + " " + position;
+    }
+}
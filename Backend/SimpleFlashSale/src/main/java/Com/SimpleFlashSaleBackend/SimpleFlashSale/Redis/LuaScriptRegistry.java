@@ -0,0 +1,152 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Loads every Lua script once at startup, registers it with SCRIPT LOAD and invokes it by SHA.
+ * Scripts are reloaded transparently when Redis answers NOSCRIPT (restart, failover, SCRIPT FLUSH).
+ */
+@Component
+public class LuaScriptRegistry {
+    public static final String BUY_COUPON = "LuaScript/buy_coupon.lua";
+    public static final String RESTORE_STOCK = "LuaScript/restore_stock.lua";
+    public static final String TAKE_STOCK = "LuaScript/take_stock.lua";
+
+    private static final List<String> SCRIPTS = List.of(BUY_COUPON, RESTORE_STOCK, TAKE_STOCK);
+
+    private static final Logger logger = LoggerFactory.getLogger(LuaScriptRegistry.class);
+
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LoadedScript> scripts = new ConcurrentHashMap<>();
+
+    public LuaScriptRegistry(RedissonClient redissonClient, MeterRegistry meterRegistry) {
+        this.redissonClient = redissonClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void loadScripts() {
+        for (String path : SCRIPTS) {
+            String source = readScript(path);
+            LoadedScript loaded = new LoadedScript(source,
+                    Timer.builder("redis.script.calls").tag("script", path).register(meterRegistry),
+                    Counter.builder("redis.script.reloads").tag("script", path).register(meterRegistry));
+            loaded.sha = scriptClient().scriptLoad(source);
+            scripts.put(path, loaded);
+            logger.info("✅ Lua script {} loaded into Redis with SHA {}", path, loaded.sha);
+        }
+    }
+
+    /** Run a registered script by SHA; keys and args are sent as plain strings. */
+    public <R> R eval(String path, RScript.ReturnType returnType, List<Object> keys, Object... args) {
+        LoadedScript loaded = scripts.get(path);
+        if (loaded == null) throw new IllegalArgumentException("Lua script not registered: " + path);
+
+        long start = System.nanoTime();
+        try {
+            return evalSha(loaded, returnType, keys, args);
+        } catch (RedisException e) {
+            if (!isNoScript(e)) throw e;
+
+            // Redis lost its script cache (restart / failover), upload again and retry once
+            logger.warn("⚠️ NOSCRIPT for {}, reloading into Redis", path);
+            reload(loaded);
+            return evalSha(loaded, returnType, keys, args);
+        } finally {
+            loaded.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Non-blocking variant of {@link #eval}; the NOSCRIPT reload and retry are chained on the returned stage. */
+    public <R> CompletionStage<R> evalAsync(String path, RScript.ReturnType returnType, List<Object> keys, Object... args) {
+        LoadedScript loaded = scripts.get(path);
+        if (loaded == null) throw new IllegalArgumentException("Lua script not registered: " + path);
+
+        long start = System.nanoTime();
+        return this.<R>evalShaAsync(loaded, returnType, keys, args)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!(cause instanceof RedisException redisException) || !isNoScript(redisException)) {
+                        return CompletableFuture.failedStage(cause);
+                    }
+
+                    logger.warn("⚠️ NOSCRIPT for {}, reloading into Redis", path);
+                    return scriptClient().scriptLoadAsync(loaded.source).thenCompose(sha -> {
+                        loaded.sha = sha;
+                        loaded.reloads.increment();
+                        return this.<R>evalShaAsync(loaded, returnType, keys, args);
+                    });
+                })
+                .whenComplete((result, e) -> loaded.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private <R> CompletionStage<R> evalShaAsync(LoadedScript loaded, RScript.ReturnType returnType, List<Object> keys, Object... args) {
+        return scriptClient().evalShaAsync(RScript.Mode.READ_WRITE, loaded.sha, returnType, keys, args);
+    }
+
+    private <R> R evalSha(LoadedScript loaded, RScript.ReturnType returnType, List<Object> keys, Object... args) {
+        return scriptClient().evalSha(RScript.Mode.READ_WRITE, loaded.sha, returnType, keys, args);
+    }
+
+    // Not synchronized: a concurrent double reload is harmless, and blocking I/O in a monitor would pin virtual threads
+    private void reload(LoadedScript loaded) {
+        loaded.sha = scriptClient().scriptLoad(loaded.source);
+        loaded.reloads.increment();
+    }
+
+    private RScript scriptClient() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    private static boolean isNoScript(RedisException e) {
+        return e.getMessage() != null && e.getMessage().contains("NOSCRIPT");
+    }
+
+    private String readScript(String scriptPath) {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(scriptPath)) {
+            if (inputStream == null) throw new RuntimeException("Lua script not found: " + scriptPath);
+            return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))
+                    .lines().collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load Lua script: " + scriptPath, e);
+        }
+    }
+
+    private static final class LoadedScript {
+        private final String source;
+        private final Timer timer;
+        private final Counter reloads;
+        private volatile String sha;
+
+        private LoadedScript(String source, Timer timer, Counter reloads) {
+            this.source = source;
+            this.timer = timer;
+            this.reloads = reloads;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-key single-flight loading for cache misses.
+ * <p>
+ * Inside one JVM, concurrent misses on the same key wait for and share the first caller's load. Across pods, that
+ * caller takes a short per-key Redis lease, so normally one pod loads and the others find the cache filled when
+ * the lease is released. The lease only narrows the stampede: if it cannot be had in time the caller loads anyway,
+ * so readers are never refused. Different keys never wait on each other.
+ */
+@Component
+public class SingleFlightLoader {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightLoader.class);
+
+    private static final String LEASE_PREFIX = "SimpleFlashSale#loadLease:";
+
+    private final RedissonClient redissonClient;
+    private final long leaseWaitMs;
+    private final long leaseTimeMs;
+    private final Counter leaseTimeouts;
+    private final Counter sharedLoads;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlightLoader(RedissonClient redissonClient, MeterRegistry meterRegistry,
+                              @Value("${cache.load-lease.wait-ms:3000}") long leaseWaitMs,
+                              @Value("${cache.load-lease.lease-ms:10000}") long leaseTimeMs) {
+        this.redissonClient = redissonClient;
+        this.leaseWaitMs = leaseWaitMs;
+        this.leaseTimeMs = leaseTimeMs;
+        this.leaseTimeouts = Counter.builder("coupon.cache.lock.contention").tag("lock", "load-lease").register(meterRegistry);
+        this.sharedLoads = Counter.builder("coupon.cache.load.shared").register(meterRegistry);
+    }
+
+    /**
+     * Load the value of a key once for all concurrent callers.
+     *
+     * @param cached looks the key up in the shared cache again, after waiting for another pod's lease
+     * @param loader loads from the source of truth and fills the shared cache
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> cached, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            sharedLoads.increment();
+            try {
+                return (T) leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            T value = loadWithLease(key, cached, loader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private <T> T loadWithLease(String key, Supplier<T> cached, Supplier<T> loader) {
+        RLock lease = redissonClient.getLock(LEASE_PREFIX + key);
+        boolean leased = false;
+        try {
+            leased = lease.tryLock(leaseWaitMs, leaseTimeMs, TimeUnit.MILLISECONDS);
+            if (!leased) {
+                leaseTimeouts.increment();
+                logger.warn("⚠️ Load lease for {} still held after {} ms, loading anyway", key, leaseWaitMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            // Another pod may have filled the cache while this one waited for the lease
+            T value = cached.get();
+            return value != null ? value : loader.get();
+        } finally {
+            if (leased && lease.isHeldByCurrentThread()) lease.unlock();
+        }
+    }
+}
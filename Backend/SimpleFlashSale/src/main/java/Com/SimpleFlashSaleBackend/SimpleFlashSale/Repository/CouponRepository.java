@@ -2,11 +2,15 @@ package Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository;
 
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.Coupon;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,5 +27,34 @@ public interface CouponRepository extends JpaRepository<Coupon, Long> {
     Page<Coupon> findByIsDeletedFalse(Pageable pageable);
 
     long countByIsDeletedFalse();
-}
 
+    List<Coupon> findByIsDeletedFalse();
+
+    // Keyset pagination: seeks the (is_deleted, id) index instead of scanning past an OFFSET
+    List<Coupon> findByIsDeletedFalseAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Price only, so payments don't load whole coupon entities
+    @Query("select c.price from Coupon c where c.id = :id")
+    Optional<Integer> findPriceById(@Param("id") Long id);
+
+    @Query("select c.id as id, c.price as price from Coupon c where c.id in :ids")
+    List<CouponPrice> findPricesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Stock net of sales still in the write-behind journal; one statement, so a concurrent flush is seen either
+    // entirely or not at all
+    @Query(value = "select c.id as id, cast(c.quantity - coalesce((select sum(j.units) from coupon_quantity_journal j "
+            + "where j.coupon_id = c.id), 0) as signed) as quantity from coupons c where c.id in :ids", nativeQuery = true)
+    List<CouponQuantity> findUnsoldQuantitiesByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface CouponPrice {
+        Long getId();
+
+        Integer getPrice();
+    }
+
+    interface CouponQuantity {
+        Long getId();
+
+        int getQuantity();
+    }
+}
@@ -2,12 +2,19 @@ package Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository;
 
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.UserCoupon;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface UserCouponRepository extends JpaRepository<UserCoupon, Long> {
+public interface UserCouponRepository extends JpaRepository<UserCoupon, String> {
     // Get all coupons a user has purchased
     List<UserCoupon> findByUserId(String userId);
+
+    // Order IDs that are already settled, so a redelivered batch is not paid twice
+    @Query("select uc.id from UserCoupon uc where uc.id in :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
 }
\ No newline at end of file
@@ -2,8 +2,13 @@ package Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository;
 
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +18,16 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     // Find user by username
     Optional<User> findByUsername(String username);
+
+    // IDs only, used to preload the in-memory user directory
+    @Query("select u.id from User u")
+    List<String> findAllIds();
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+
+    // Debit only if the balance covers it; returns 0 when it does not (or the user is unknown)
+    @Modifying
+    @Query("update User u set u.credit = u.credit - :amount where u.id = :id and u.credit >= :amount")
+    int debitCredit(@Param("id") String id, @Param("amount") float amount);
 }
@@ -0,0 +1,384 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Search;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.Coupon;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Mapper.CouponMapper;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.CouponRepository;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.ServerIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * In-JVM inverted index over coupon names and descriptions, so search never runs {@code LIKE '%x%'} on MySQL.
+ * <p>
+ * Queries of three characters or more are matched as substrings: the trigram postings give the candidates and
+ * each one is confirmed against the stored text. Shorter queries, and autocomplete, use a sorted word map and
+ * match word prefixes. Deleted coupons are never indexed.
+ * <p>
+ * Reads take no lock. Writes swap one coupon at a time and every hit is re-checked against the current text, so a
+ * reader racing a write can at worst miss that one coupon. Changes are applied once the transaction commits and
+ * sent to the other pods over Redis, which reload the coupon from MySQL on the search index executor rather than on
+ * the pub/sub listener thread; a periodic rebuild covers lost messages.
+ */
+@Component
+public class CouponSearchIndex implements MessageListener {
+    public static final String CHANGE_CHANNEL = "SimpleFlashSale#coupon-search-changed";
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponSearchIndex.class);
+
+    private static final int GRAM = 3;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final CouponRepository couponRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Executor reloadExecutor;
+    private final Timer searchTimer;
+    private final Timer autocompleteTimer;
+
+    private volatile Snapshot snapshot = new Snapshot();
+    private volatile boolean ready;
+
+    // IDs changed while a rebuild was reading MySQL; replayed onto the new snapshot
+    private Set<Long> changedDuringRebuild;
+
+    public CouponSearchIndex(CouponRepository couponRepository, StringRedisTemplate redisTemplate,
+                             @Qualifier("searchIndexExecutor") Executor reloadExecutor, MeterRegistry meterRegistry) {
+        this.couponRepository = couponRepository;
+        this.redisTemplate = redisTemplate;
+        this.reloadExecutor = reloadExecutor;
+        this.searchTimer = Timer.builder("coupon.search.latency").tag("query", "search").register(meterRegistry);
+        this.autocompleteTimer = Timer.builder("coupon.search.latency").tag("query", "autocomplete").register(meterRegistry);
+
+        Gauge.builder("coupon.search.index.documents", this, index -> index.snapshot.docs.size()).register(meterRegistry);
+        Gauge.builder("coupon.search.index.terms", this, index -> index.snapshot.terms()).register(meterRegistry);
+        Gauge.builder("coupon.search.index.postings", this, index -> index.snapshot.postings()).register(meterRegistry);
+        Gauge.builder("coupon.search.index.estimated.bytes", this, index -> index.snapshot.estimatedBytes())
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    /** False until the first build finished; callers fall back to MySQL until then. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Coupons matching the query, best match first. */
+    public List<CouponDTO> search(String query, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            String normalized = normalize(query);
+            if (normalized.isEmpty()) return List.of();
+
+            Snapshot current = snapshot;
+            Set<Long> candidates = normalized.length() >= GRAM
+                    ? current.substringCandidates(normalized)
+                    : current.wordPrefixCandidates(normalized);
+
+            List<Hit> hits = new ArrayList<>();
+            for (Long id : candidates) {
+                Doc doc = current.docs.get(id);
+                if (doc == null) continue;
+                int score = doc.score(normalized);
+                if (score > 0) hits.add(new Hit(doc, score));
+            }
+            hits.sort(Comparator.comparingInt(Hit::score).reversed()
+                    .thenComparingInt(hit -> hit.doc.name.length())
+                    .thenComparing(hit -> hit.doc.coupon.getId()));
+
+            // long: page * size can overflow an int, and the offset past the last hit is simply an empty page
+            int from = (int) Math.min((long) page * size, hits.size());
+            int to = (int) Math.min((long) from + size, hits.size());
+            return hits.subList(from, to).stream().map(hit -> hit.doc.coupon).toList();
+        } finally {
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Up to {@code limit} coupon names with a word starting with the prefix, shortest first. */
+    public List<String> autocomplete(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            String normalized = normalize(prefix);
+            if (normalized.isEmpty()) return List.of();
+
+            Snapshot current = snapshot;
+            return current.wordPrefixCandidates(normalized).stream()
+                    .map(current.docs::get)
+                    .filter(doc -> doc != null && doc.nameWords.stream().anyMatch(word -> word.startsWith(normalized)))
+                    .map(doc -> doc.coupon.getName())
+                    .distinct()
+                    .sorted(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            autocompleteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Index the saved coupon here and on every other pod, once the surrounding transaction commits. */
+    public void onCouponChanged(Coupon coupon) {
+        CouponDTO dto = CouponMapper.toDTO(coupon);
+        Runnable apply = () -> {
+            apply(dto.getId(), dto);
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, ServerIdGenerator.getServerId() + ":" + dto.getId());
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (body.substring(0, Math.max(separator, 0)).equals(ServerIdGenerator.getServerId())) return;
+
+        long couponId;
+        try {
+            couponId = Long.parseLong(body.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ Ignoring malformed search index message: {}", body);
+            return;
+        }
+
+        try {
+            reloadExecutor.execute(() -> reload(couponId));
+        } catch (RejectedExecutionException e) {
+            logger.warn("⚠️ Search index reload of coupon {} dropped, the next rebuild will pick it up", couponId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval-ms:900000}",
+            fixedDelayString = "${search.index.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            changedDuringRebuild = new HashSet<>();
+        }
+
+        Snapshot rebuilt = new Snapshot();
+        try {
+            for (Coupon coupon : couponRepository.findByIsDeletedFalse()) {
+                rebuilt.put(new Doc(CouponMapper.toDTO(coupon)));
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            logger.error("❌ Failed to build coupon search index: {}", e.getMessage());
+            return;
+        }
+
+        Set<Long> replay;
+        synchronized (this) {
+            snapshot = rebuilt;
+            replay = changedDuringRebuild;
+            changedDuringRebuild = null;
+        }
+        replay.forEach(this::reload);
+        ready = true;
+
+        logger.info("✅ Coupon search index built: {} coupons, {} terms, {} postings, ~{} KB in {} ms",
+                rebuilt.docs.size(), rebuilt.terms(), rebuilt.postings(), rebuilt.estimatedBytes() / 1024,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void reload(long couponId) {
+        try {
+            Optional<Coupon> coupon = couponRepository.findById(couponId);
+            apply(couponId, coupon.map(CouponMapper::toDTO).orElse(null));
+        } catch (Exception e) {
+            logger.error("❌ Failed to reload coupon {} into the search index: {}", couponId, e.getMessage());
+        }
+    }
+
+    private synchronized void apply(long couponId, CouponDTO coupon) {
+        if (changedDuringRebuild != null) changedDuringRebuild.add(couponId);
+
+        if (coupon == null || coupon.isDeleted()) {
+            snapshot.remove(couponId);
+        } else {
+            snapshot.put(new Doc(coupon));
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static List<String> words(String text) {
+        return WORD_SEPARATOR.splitAsStream(text).filter(word -> !word.isEmpty()).distinct().toList();
+    }
+
+    private record Hit(Doc doc, int score) {
+    }
+
+    /** One indexed coupon with its normalized text. */
+    private static final class Doc {
+        private final CouponDTO coupon;
+        private final String name;
+        private final String description;
+        private final List<String> nameWords;
+        private final List<String> descriptionWords;
+        private final Set<String> grams = new HashSet<>();
+        private final Set<String> words = new LinkedHashSet<>();
+
+        private Doc(CouponDTO coupon) {
+            this.coupon = coupon;
+            this.name = normalize(coupon.getName());
+            this.description = normalize(coupon.getDescription());
+            this.nameWords = words(name);
+            this.descriptionWords = words(description);
+            grams.addAll(grams(name));
+            grams.addAll(grams(description));
+            words.addAll(nameWords);
+            words.addAll(descriptionWords);
+        }
+
+        private int score(String query) {
+            if (name.equals(query)) return 100;
+            if (name.startsWith(query)) return 80;
+            if (nameWords.stream().anyMatch(word -> word.startsWith(query))) return 60;
+            if (query.length() >= GRAM && name.contains(query)) return 40;
+            if (descriptionWords.stream().anyMatch(word -> word.startsWith(query))) return 20;
+            if (query.length() >= GRAM && description.contains(query)) return 10;
+            return 0;
+        }
+    }
+
+    /** Postings for one generation of the index; replaced wholesale by a rebuild. */
+    private static final class Snapshot {
+        private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> gramPostings = new ConcurrentHashMap<>();
+        private final NavigableMap<String, Set<Long>> wordPostings = new ConcurrentSkipListMap<>();
+
+        private void put(Doc doc) {
+            Long id = doc.coupon.getId();
+            Doc previous = docs.put(id, doc);
+            if (previous != null) unlink(id, previous, doc);
+            doc.grams.forEach(gram -> gramPostings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id));
+            doc.words.forEach(word -> wordPostings.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(id));
+        }
+
+        private void remove(long id) {
+            Doc previous = docs.remove(id);
+            if (previous != null) unlink(id, previous, null);
+        }
+
+        // Drop the postings the old text had and the new one (if any) does not
+        private void unlink(Long id, Doc previous, Doc replacement) {
+            for (String gram : previous.grams) {
+                if (replacement != null && replacement.grams.contains(gram)) continue;
+                removePosting(gramPostings, gram, id);
+            }
+            for (String word : previous.words) {
+                if (replacement != null && replacement.words.contains(word)) continue;
+                removePosting(wordPostings, word, id);
+            }
+        }
+
+        private static void removePosting(Map<String, Set<Long>> postings, String term, Long id) {
+            postings.computeIfPresent(term, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+
+        /** IDs holding every trigram of the query, walking the rarest posting list. */
+        private Set<Long> substringCandidates(String query) {
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String gram : grams(query)) {
+                Set<Long> ids = gramPostings.get(gram);
+                if (ids == null) return Set.of();
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> candidates = new HashSet<>();
+            for (Long id : lists.get(0)) {
+                boolean inAll = true;
+                for (int i = 1; i < lists.size() && inAll; i++) {
+                    inAll = lists.get(i).contains(id);
+                }
+                if (inAll) candidates.add(id);
+            }
+            return candidates;
+        }
+
+        private Set<Long> wordPrefixCandidates(String prefix) {
+            Set<Long> candidates = new LinkedHashSet<>();
+            for (Set<Long> ids : wordPostings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                candidates.addAll(ids);
+            }
+            return candidates;
+        }
+
+        private int terms() {
+            return gramPostings.size() + wordPostings.size();
+        }
+
+        private long postings() {
+            long total = 0;
+            for (Set<Long> ids : gramPostings.values()) total += ids.size();
+            for (Set<Long> ids : wordPostings.values()) total += ids.size();
+            return total;
+        }
+
+        // Rough: ~64 bytes per term (key string + map node + set), ~48 per posting (boxed Long + set node),
+        // plus each document's text and term sets
+        private long estimatedBytes() {
+            long bytes = terms() * 64L + postings() * 48L;
+            for (Doc doc : docs.values()) {
+                bytes += 2L * (doc.name.length() + doc.description.length()) + 48L * (doc.grams.size() + doc.words.size());
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.search.Search;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the catalog cache tiers, and the {@code /actuator/catalogcache} summary built from them.
+ * <p>
+ * Caffeine reports its own hits, misses and evictions through {@code recordStats()} (meters {@code cache.*},
+ * tag {@code cache=couponPages}). Each Caffeine miss is one Redis lookup in {@code coupon.cache.requests}, and
+ * Redis misses of the same page share one MySQL load, so {@code coupon.cache.load.latency{tier=mysql}} counts
+ * actual database loads, background refreshes included.
+ */
+@Component
+@Endpoint(id = "catalogcache")
+public class CatalogCacheMetrics {
+    public static final String CAFFEINE_CACHE_NAME = "couponPages";
+
+    private static final String REQUESTS = "coupon.cache.requests";
+    private static final String LOAD_LATENCY = "coupon.cache.load.latency";
+    private static final String LOCK_CONTENTION = "coupon.cache.lock.contention";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Timer redisLatency;
+    private final Timer mysqlLatency;
+    private final Counter refreshFailures;
+    private final Counter couponUpdateContention;
+
+    public CatalogCacheMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.redisHits = Counter.builder(REQUESTS).tag("tier", "redis").tag("result", "hit").register(meterRegistry);
+        this.redisMisses = Counter.builder(REQUESTS).tag("tier", "redis").tag("result", "miss").register(meterRegistry);
+        this.redisLatency = latencyTimer("redis");
+        this.mysqlLatency = latencyTimer("mysql");
+        this.refreshFailures = Counter.builder("coupon.cache.refresh.failures").register(meterRegistry);
+        // SingleFlightLoader counts its lease timeouts under the same name with lock=load-lease
+        this.couponUpdateContention = Counter.builder(LOCK_CONTENTION).tag("lock", "coupon-update").register(meterRegistry);
+    }
+
+    private Timer latencyTimer(String tier) {
+        return Timer.builder(LOAD_LATENCY)
+                .tag("tier", tier)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /** A coupon write found the update lock taken and was refused. */
+    public void couponUpdateLockContended() {
+        couponUpdateContention.increment();
+    }
+
+    public <T> T timeRedis(Supplier<T> read) {
+        T value = redisLatency.record(read);
+        (value != null ? redisHits : redisMisses).increment();
+        return value;
+    }
+
+    public <T> T timeMysql(Supplier<T> load) {
+        return mysqlLatency.record(load);
+    }
+
+    public void refreshFailed() {
+        refreshFailures.increment();
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        double caffeineHits = functionCount("cache.gets", "result", "hit");
+        double caffeineMisses = functionCount("cache.gets", "result", "miss");
+
+        Map<String, Object> caffeine = new LinkedHashMap<>();
+        caffeine.put("hits", caffeineHits);
+        caffeine.put("misses", caffeineMisses);
+        caffeine.put("hitRatio", ratio(caffeineHits, caffeineMisses));
+        caffeine.put("evictions", functionCount("cache.evictions", null, null));
+        Gauge size = meterRegistry.find("cache.size").tag("cache", CAFFEINE_CACHE_NAME).gauge();
+        caffeine.put("size", size != null ? size.value() : 0);
+
+        Map<String, Object> redis = new LinkedHashMap<>();
+        redis.put("hits", redisHits.count());
+        redis.put("misses", redisMisses.count());
+        redis.put("hitRatio", ratio(redisHits.count(), redisMisses.count()));
+        redis.put("latencyMs", latency(redisLatency));
+
+        Map<String, Object> mysql = new LinkedHashMap<>();
+        mysql.put("loads", mysqlLatency.count());
+        mysql.put("latencyMs", latency(mysqlLatency));
+
+        Map<String, Object> contention = new LinkedHashMap<>();
+        meterRegistry.find(LOCK_CONTENTION).counters()
+                .forEach(counter -> contention.put(counter.getId().getTag("lock"), counter.count()));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("caffeine", caffeine);
+        summary.put("redis", redis);
+        summary.put("mysql", mysql);
+        // Share of page reads answered without going to MySQL (a Redis miss either loads or waits for a load)
+        summary.put("overallHitRatio", ratio(caffeineHits + redisHits.count(), redisMisses.count()));
+        summary.put("refreshFailures", refreshFailures.count());
+        summary.put("lockContention", contention);
+        return summary;
+    }
+
+    private double functionCount(String name, String tagKey, String tagValue) {
+        Search search = meterRegistry.find(name).tag("cache", CAFFEINE_CACHE_NAME);
+        if (tagKey != null) search = search.tag(tagKey, tagValue);
+        FunctionCounter counter = search.functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static Map<String, Double> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Double> latency = new LinkedHashMap<>();
+        latency.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latency.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        latency.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+        return latency;
+    }
+
+    private static double ratio(double hits, double misses) {
+        double total = hits + misses;
+        return total == 0 ? 0 : hits / total;
+    }
+}
@@ -0,0 +1,139 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Response.Response;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Encodes catalog responses without running Jackson on every request.
+ * <p>
+ * Each page is serialized once into a template, split around the {@code quantity} values. A request only splices
+ * the live quantities into the template; if they are the same as last time, the previous bytes and ETag are
+ * reused as they are. Templates are keyed by the page cache key, which carries the catalog generation, so a
+ * catalog change never reuses an old template.
+ */
+@Component
+public class CatalogPageEncoder {
+    static final String MESSAGE = "Coupons retrieved successfully!";
+
+    private static final int QUANTITY_PLACEHOLDER = Integer.MIN_VALUE;
+    private static final Pattern QUANTITY_FIELD = Pattern.compile(Pattern.quote("\"quantity\":" + QUANTITY_PLACEHOLDER));
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Template> templates = Caffeine.newBuilder()
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .maximumSize(1_000)
+            .build();
+
+    public CatalogPageEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** JSON body and ETag for a catalog page, in the same shape as the {@code Response<Map>} it replaces. */
+    public Encoded encode(String cacheKey, List<CouponDTO> metadata, Map<Long, Integer> quantities, int totalPages) {
+        Template template = templates.getIfPresent(cacheKey);
+        if (template == null || template.ids.length != metadata.size() || template.totalPages != totalPages) {
+            template = buildTemplate(metadata, totalPages);
+            templates.put(cacheKey, template);
+        }
+
+        int[] stock = new int[template.ids.length];
+        for (int i = 0; i < stock.length; i++) {
+            stock[i] = quantities.getOrDefault(template.ids[i], 0);
+        }
+
+        Encoded last = template.last;
+        if (last != null && Arrays.equals(last.quantities, stock)) return last;
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(template.size + stock.length * 4);
+        for (int i = 0; i < stock.length; i++) {
+            body.writeBytes(template.fragments[i]);
+            body.writeBytes(("\"quantity\":" + stock[i]).getBytes(StandardCharsets.US_ASCII));
+        }
+        body.writeBytes(template.fragments[stock.length]);
+
+        byte[] bytes = body.toByteArray();
+        Encoded encoded = new Encoded(bytes, etag(bytes), stock);
+        template.last = encoded;
+        return encoded;
+    }
+
+    private Template buildTemplate(List<CouponDTO> metadata, int totalPages) {
+        long[] ids = new long[metadata.size()];
+        List<CouponDTO> placeholders = new ArrayList<>(metadata.size());
+        for (int i = 0; i < ids.length; i++) {
+            CouponDTO coupon = metadata.get(i);
+            ids[i] = coupon.getId();
+            placeholders.add(new CouponDTO(coupon.getId(), coupon.getName(), coupon.getImageURL(), coupon.getPrice(),
+                    coupon.getDescription(), QUANTITY_PLACEHOLDER, coupon.isPaymentSuccessful(), coupon.isDeleted()));
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("coupons", placeholders);
+        data.put("totalPages", totalPages);
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(new Response<>(200, MESSAGE, data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode catalog page", e);
+        }
+
+        // Inside JSON strings quotes are escaped, so the placeholder field can only match the real quantity fields
+        String[] parts = QUANTITY_FIELD.split(json, -1);
+        if (parts.length != ids.length + 1) throw new IllegalStateException("Unexpected catalog page layout");
+
+        byte[][] fragments = new byte[parts.length][];
+        int size = 0;
+        for (int i = 0; i < parts.length; i++) {
+            fragments[i] = parts[i].getBytes(StandardCharsets.UTF_8);
+            size += fragments[i].length;
+        }
+        return new Template(ids, fragments, size, totalPages);
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Encoded page body with its strong ETag. */
+    public record Encoded(byte[] body, String etag, int[] quantities) {
+    }
+
+    private static final class Template {
+        private final long[] ids;
+        private final byte[][] fragments;
+        private final int size;
+        private final int totalPages;
+        private volatile Encoded last;
+
+        private Template(long[] ids, byte[][] fragments, int size, int totalPages) {
+            this.ids = ids;
+            this.fragments = fragments;
+            this.size = size;
+            this.totalPages = totalPages;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.Coupon;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Mapper.CouponMapper;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogPage;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.SingleFlightLoader;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.CouponRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Fills the Caffeine catalog tier from Redis, and Redis from MySQL, one load per page across pods.
+ * <p>
+ * Caffeine calls {@link #reload} in the background for hot pages past their refresh age while readers keep
+ * getting the old list. A reload only takes the Redis copy if another pod refreshed it within the same window;
+ * otherwise it reads MySQL and rewrites Redis, so neither tier ever expires under a reader's feet.
+ */
+@Component
+public class CatalogPageLoader implements CacheLoader<CatalogPage, List<CouponDTO>> {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogPageLoader.class);
+
+    private final CouponRepository couponRepository;
+    private final RedissonClient redissonClient;
+    private final SingleFlightLoader singleFlightLoader;
+    private final CatalogCacheMetrics metrics;
+    private final long redisTtlSeconds;
+    private final long refreshAfterSeconds;
+
+    public CatalogPageLoader(CouponRepository couponRepository, RedissonClient redissonClient,
+                             SingleFlightLoader singleFlightLoader, CatalogCacheMetrics metrics,
+                             @Value("${cache.coupon-pages.redis-ttl-seconds:3600}") long redisTtlSeconds,
+                             @Value("${cache.coupon-pages.refresh-after-seconds:60}") long refreshAfterSeconds) {
+        this.couponRepository = couponRepository;
+        this.redissonClient = redissonClient;
+        this.singleFlightLoader = singleFlightLoader;
+        this.metrics = metrics;
+        this.redisTtlSeconds = redisTtlSeconds;
+        this.refreshAfterSeconds = refreshAfterSeconds;
+    }
+
+    /** Miss in Caffeine: Redis, then MySQL. Empty pages are not cached (null). */
+    @Override
+    public List<CouponDTO> load(CatalogPage page) {
+        RBucket<List<CouponDTO>> redisCache = redissonClient.getBucket(page.cacheKey());
+        List<CouponDTO> redisCachedCoupons = metrics.timeRedis(redisCache::get);
+        if (redisCachedCoupons != null) {
+            logger.info("✅ Coupons fetched from Redis for {}: {}", page, redisCachedCoupons.size());
+            return redisCachedCoupons;
+        }
+
+        // Prevent cache breakdown: one load per page, shared by concurrent readers on this and other pods
+        List<CouponDTO> coupons = singleFlightLoader.load(page.cacheKey(), redisCache::get, () -> loadFromDatabase(page, redisCache));
+        return coupons.isEmpty() ? null : coupons;
+    }
+
+    /** Refresh-ahead for a page Caffeine still serves; a failure keeps the old list until its hard expiry. */
+    @Override
+    public List<CouponDTO> reload(CatalogPage page, List<CouponDTO> oldValue) {
+        try {
+            RBucket<List<CouponDTO>> redisCache = redissonClient.getBucket(page.cacheKey());
+            List<CouponDTO> coupons = singleFlightLoader.load(page.cacheKey(),
+                    () -> refreshedRecently(redisCache) ? redisCache.get() : null,
+                    () -> loadFromDatabase(page, redisCache));
+            return coupons.isEmpty() ? null : coupons;
+        } catch (RuntimeException e) {
+            metrics.refreshFailed();
+            logger.warn("⚠️ Refresh of catalog {} failed, serving the cached copy: {}", page, e.getMessage());
+            throw e;
+        }
+    }
+
+    private boolean refreshedRecently(RBucket<List<CouponDTO>> redisCache) {
+        long remainingMs = redisCache.remainTimeToLive();
+        return remainingMs > TimeUnit.SECONDS.toMillis(redisTtlSeconds - refreshAfterSeconds);
+    }
+
+    private List<CouponDTO> loadFromDatabase(CatalogPage page, RBucket<List<CouponDTO>> redisCache) {
+        return metrics.timeMysql(() -> queryAndStore(page, redisCache));
+    }
+
+    private List<CouponDTO> queryAndStore(CatalogPage page, RBucket<List<CouponDTO>> redisCache) {
+        logger.warn("⚠️ Loading catalog {} from MySQL...", page);
+        List<Coupon> rows = switch (page.kind()) {
+            case PAGE -> couponRepository.findByIsDeletedFalse(PageRequest.of((int) page.position(), page.size())).getContent();
+            case AFTER -> couponRepository.findByIsDeletedFalseAndIdGreaterThanOrderByIdAsc(page.position(), Limit.of(page.size()));
+        };
+        List<CouponDTO> coupons = rows.stream()
+                .map(CouponMapper::toDTO)
+                .collect(Collectors.toList());
+
+        if (coupons.isEmpty()) {
+            return List.of();
+        }
+
+        // Store metadata in Redis (distributed); Caffeine keeps what this returns
+        redisCache.set(coupons, Duration.ofSeconds(redisTtlSeconds));
+        logger.info("✅ Coupon metadata stored in Redis for {}.", page);
+        return coupons;
+    }
+}
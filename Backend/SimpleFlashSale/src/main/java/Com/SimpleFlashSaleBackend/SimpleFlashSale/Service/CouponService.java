@@ -3,37 +3,39 @@ package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.OrderStatusWebSocketHandler;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.Coupon;
-import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.User;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Exception.ResourceNotFoundException;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponInventory;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponQuantityWriteBehind;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.InventoryLeaseManager;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.SoldOutRegistry;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.StockResetBroadcast;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEvent;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogGeneration;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogPage;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Mapper.CouponMapper;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.CouponRepository;
-import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.UserRepository;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Response.Response;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Search.CouponSearchIndex;
 
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.ServerIdGenerator;
-import com.github.benmanes.caffeine.cache.Cache;
-import org.redisson.api.RBucket;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import org.redisson.api.RLock;
-import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
-import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,27 +44,58 @@ import org.slf4j.LoggerFactory;
 public class CouponService {
     private final CouponRepository couponRepository;
     private final RedissonClient redissonClient;
-    private final UserRepository userRepository;
-
-    private final KafkaTemplate<String, String> kafkaTemplate;
-
-    private final Cache<String, List<CouponDTO>> localCouponCache;
+    private final UserDirectory userDirectory;
+    private final CouponInventory couponInventory;
+    private final InventoryLeaseManager inventoryLeaseManager;
+    private final SoldOutRegistry soldOutRegistry;
+    private final StockResetBroadcast stockResetBroadcast;
+    private final CouponQuantityWriteBehind couponQuantityWriteBehind;
+    private final CatalogGeneration catalogGeneration;
+    private final CouponSearchIndex couponSearchIndex;
+    private final CatalogPageEncoder catalogPageEncoder;
+    private final CatalogCacheMetrics catalogCacheMetrics;
+
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final Executor orderPlacementExecutor;
+
+    private final LoadingCache<CatalogPage, List<CouponDTO>> localCouponCache;
 
     private static final Logger logger = LoggerFactory.getLogger(CouponService.class);
 
-    private static final String COUPON_CACHE_PREFIX = "SimpleFlashSale#coupon:";
     private static final String COUPON_UPDATE_LOCK = "SimpleFlashSale#couponUpdate";
 
     @Value("${kafka.topic.payment}")
     private String paymentTopic;
 
+    private volatile CouponCount couponCount;
+
+    @Value("${kafka.producer.partition-key:user}")
+    private String partitionKey;
+
     public CouponService(CouponRepository couponRepository, RedissonClient redissonClient,
-                         UserRepository userRepository, KafkaTemplate<String, String> kafkaTemplate, Cache<String, List<CouponDTO>> localCouponCache) {
+                         UserDirectory userDirectory, CouponInventory couponInventory,
+                         InventoryLeaseManager inventoryLeaseManager, SoldOutRegistry soldOutRegistry,
+                         StockResetBroadcast stockResetBroadcast,
+                         CouponQuantityWriteBehind couponQuantityWriteBehind,
+                         CatalogGeneration catalogGeneration, CouponSearchIndex couponSearchIndex,
+                         CatalogPageEncoder catalogPageEncoder, CatalogCacheMetrics catalogCacheMetrics,
+                         KafkaTemplate<String, OrderEvent> kafkaTemplate, LoadingCache<CatalogPage, List<CouponDTO>> localCouponCache,
+                         @Qualifier("orderPlacementExecutor") Executor orderPlacementExecutor) {
         this.couponRepository = couponRepository;
         this.redissonClient = redissonClient;
-        this.userRepository = userRepository;
+        this.userDirectory = userDirectory;
+        this.couponInventory = couponInventory;
+        this.inventoryLeaseManager = inventoryLeaseManager;
+        this.soldOutRegistry = soldOutRegistry;
+        this.stockResetBroadcast = stockResetBroadcast;
+        this.couponQuantityWriteBehind = couponQuantityWriteBehind;
+        this.catalogGeneration = catalogGeneration;
+        this.couponSearchIndex = couponSearchIndex;
+        this.catalogPageEncoder = catalogPageEncoder;
+        this.catalogCacheMetrics = catalogCacheMetrics;
         this.kafkaTemplate = kafkaTemplate;
         this.localCouponCache = localCouponCache;
+        this.orderPlacementExecutor = orderPlacementExecutor;
     }
 
     /** Create Coupon & Update Redis with Lock */
@@ -72,6 +105,7 @@ public class CouponService {
 
         // If another process holds the lock, return 500 response instead of throwing an error
         if (!lock.tryLock()) {
+            catalogCacheMetrics.couponUpdateLockContended();
             return new Response<>(500, "Another process is updating coupons. Try again later.", null);
         }
 
@@ -87,77 +121,81 @@ public class CouponService {
     }
 
     // 按名称搜索购物券
-    public Response<List<CouponDTO>> searchCoupons(String name) {
-        List<CouponDTO> coupons = couponRepository.findByNameContainingIgnoreCase(name)
-                .stream()
-                .map(CouponMapper::toDTO)
-                .collect(Collectors.toList());
+    public Response<List<CouponDTO>> searchCoupons(String name, int page, int size) {
+        if (!couponSearchIndex.isReady()) {
+            // Index is still being built: fall back to MySQL
+            List<CouponDTO> coupons = couponRepository.findByNameContainingIgnoreCase(name)
+                    .stream()
+                    .filter(coupon -> !coupon.isDeleted())
+                    .skip((long) page * size)
+                    .limit(size)
+                    .map(CouponMapper::toDTO)
+                    .collect(Collectors.toList());
+            return new Response<>(200, "Coupons retrieved successfully!", withLiveStock(coupons));
+        }
 
-        return new Response<>(200, "Coupons retrieved successfully!", coupons);
+        return new Response<>(200, "Coupons retrieved successfully!", withLiveStock(couponSearchIndex.search(name, page, size)));
     }
 
-    public Response<List<CouponDTO>> getCouponsPaginated(int page, int size) {
-        String cacheKey = COUPON_CACHE_PREFIX + "page:" + page + ":size:" + size;
+    public Response<List<String>> autocompleteCoupons(String prefix, int limit) {
+        return new Response<>(200, "Suggestions retrieved successfully!", couponSearchIndex.autocomplete(prefix, limit));
+    }
 
-        // **1️⃣ Try fetching from Caffeine Cache first**
-        List<CouponDTO> localCachedCoupons = localCouponCache.getIfPresent(cacheKey);
-        if (localCachedCoupons != null) {
-            logger.info("✅ Coupons fetched from Caffeine cache for page {}: {}", page, localCachedCoupons.size());
-            return new Response<>(200, "Coupons retrieved successfully from local cache!", localCachedCoupons);
-        }
+    /**
+     * Pages are cached as coupon metadata only (name, image, price, description), which changes rarely and can be
+     * kept for a long time. Live stock is read from Redis for the whole page in one pipelined batch on every call,
+     * so the quantities shown are never older than the request. The page is returned as ready-to-send JSON with its
+     * ETag; Jackson only runs when the page metadata changes.
+     */
+    public CatalogPageEncoder.Encoded getCouponsPaginatedJson(int page, int size) {
+        CatalogPage catalogPage = CatalogPage.page(catalogGeneration.current(), page, size);
+        List<CouponDTO> metadata = catalogMetadata(catalogPage);
+        return catalogPageEncoder.encode(catalogPage.cacheKey(), metadata, liveQuantities(metadata), getTotalPages(size));
+    }
 
-        // **2️⃣ Try fetching from Redis**
-        RBucket<List<CouponDTO>> redisCache = redissonClient.getBucket(cacheKey);
-        List<CouponDTO> redisCachedCoupons = redisCache.get();
-        if (redisCachedCoupons != null) {
-            logger.info("✅ Coupons fetched from Redis for page {}: {}", page, redisCachedCoupons.size());
+    /** Keyset variant: the {@code size} coupons with an ID above {@code after}, served from the (is_deleted, id) index. */
+    public Response<List<CouponDTO>> getCouponsAfter(long after, int size) {
+        List<CouponDTO> metadata = catalogMetadata(CatalogPage.after(catalogGeneration.current(), after, size));
+        return new Response<>(200, CatalogPageEncoder.MESSAGE, withLiveStock(metadata));
+    }
 
-            // Store in Caffeine cache before returning
-            localCouponCache.put(cacheKey, redisCachedCoupons);
-            return new Response<>(200, "Coupons retrieved successfully from Redis!", redisCachedCoupons);
-        }
+    private List<CouponDTO> catalogMetadata(CatalogPage page) {
+        // Caffeine first; a miss goes through CatalogPageLoader to Redis, then MySQL with one load per page across
+        // pods. One get per read keeps Caffeine's hit/miss stats exact (see CatalogCacheMetrics)
+        List<CouponDTO> coupons = localCouponCache.get(page);
+        return coupons != null ? coupons : Collections.emptyList();
+    }
 
-        // **3️⃣ Prevent cache breakdown using Redis lock**
-        RLock lock = redissonClient.getLock(COUPON_UPDATE_LOCK);
-        if (!lock.tryLock()) {
-            return new Response<>(500, "Another process is updating the cache. Try again later.", null);
-        }
+    /** Copies of the cached metadata with the current stock; the cached lists themselves are never modified. */
+    private List<CouponDTO> withLiveStock(List<CouponDTO> metadata) {
+        if (metadata.isEmpty()) return metadata;
 
-        try {
-            logger.warn("⚠️ Coupons not found in Redis, fetching from MySQL...");
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Coupon> couponPage = couponRepository.findByIsDeletedFalse(pageable);
+        Map<Long, Integer> quantities = liveQuantities(metadata);
+        return metadata.stream()
+                .map(coupon -> new CouponDTO(coupon.getId(), coupon.getName(), coupon.getImageURL(), coupon.getPrice(),
+                        coupon.getDescription(), quantities.getOrDefault(coupon.getId(), 0),
+                        coupon.isPaymentSuccessful(), coupon.isDeleted()))
+                .collect(Collectors.toList());
+    }
 
-            List<CouponDTO> coupons = couponPage.getContent().stream()
-                    .map(CouponMapper::toDTO)
-                    .collect(Collectors.toList());
+    /** Current stock of the given coupons from Redis in one pipelined read. */
+    private Map<Long, Integer> liveQuantities(List<CouponDTO> metadata) {
+        if (metadata.isEmpty()) return Map.of();
 
-            if (coupons.isEmpty()) {
-                return new Response<>(200, "Coupons retrieved successfully!", Collections.emptyList());
-            }
+        List<Long> ids = metadata.stream().map(CouponDTO::getId).collect(Collectors.toList());
+        Map<Long, Integer> quantities = new HashMap<>(couponInventory.getQuantities(ids));
 
-            // **4️⃣ Replace quantity with Redis value if available**
-            for (CouponDTO coupon : coupons) {
-                String couponQuantityKey = COUPON_CACHE_PREFIX + coupon.getId() + ":quantity";
-                RBucket<String> quantityCache = redissonClient.getBucket(couponQuantityKey, StringCodec.INSTANCE);
-                String redisQuantity = quantityCache.get();
-                if (redisQuantity != null) {
-                    coupon.setQuantity(Integer.parseInt(redisQuantity));
-                } else {
-                    // If Redis doesn't have quantity, update Redis with DB value
-                    quantityCache.set(String.valueOf(coupon.getQuantity()), 5, TimeUnit.MINUTES);
-                }
+        List<Long> missing = ids.stream().filter(id -> !quantities.containsKey(id)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            // Seed from MySQL, never from the cached metadata, which may be much older than the stock. The coupon row
+            // lags sales until the write-behind flush, so the journaled units are subtracted
+            for (CouponRepository.CouponQuantity row : couponRepository.findUnsoldQuantitiesByIdIn(missing)) {
+                couponInventory.seedQuantity(row.getId(), row.getQuantity(), Duration.ofMinutes(5));
             }
-
-            // **5️⃣ Store data in Caffeine (local) and Redis (distributed)**
-            localCouponCache.put(cacheKey, coupons);
-            redisCache.set(coupons, 2, TimeUnit.MINUTES);
-            logger.info("✅ Coupons stored in Redis & Caffeine for page {}.", page);
-
-            return new Response<>(200, "Coupons retrieved successfully!", coupons);
-        } finally {
-            lock.unlock();
+            // Another reader may have seeded first and buyers may have taken from it since: report what Redis holds
+            quantities.putAll(couponInventory.getQuantities(missing));
         }
+        return quantities;
     }
 
     /** Update Coupon & Sync with Redis using Lock */
@@ -167,6 +205,7 @@ public class CouponService {
 
         // If another process holds the lock, return 500 response instead of throwing an error
         if (!lock.tryLock()) {
+            catalogCacheMetrics.couponUpdateLockContended();
             return new Response<>(500, "Another process is updating coupons. Try again later.", null);
         }
 
@@ -177,6 +216,7 @@ public class CouponService {
             coupon.setName(dto.getName());
             coupon.setDescription(dto.getDescription());
             coupon.setQuantity(dto.getQuantity());
+            couponQuantityWriteBehind.discard(id); // Sales journaled so far are superseded by the new quantity
             coupon.setImageURL(dto.getImageURL());
             coupon.setPrice(dto.getPrice());
 
@@ -196,6 +236,7 @@ public class CouponService {
 
         // If another process holds the lock, return a 500 response instead of throwing an error
         if (!lock.tryLock()) {
+            catalogCacheMetrics.couponUpdateLockContended();
             return new Response<>(500, "Another process is updating coupons. Try again later.", null);
         }
 
@@ -214,72 +255,147 @@ public class CouponService {
     }
 
     /** Buy Coupon Using Redis & Lua Script */
-    @Transactional
     public Response<String> buyCoupon(String userId, Long couponId) throws InterruptedException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
+        // Sold out as far as this node knows: reject without touching MySQL or Redis
+        if (soldOutRegistry.isSoldOut(couponId)) return new Response<>(400, "Coupon out of stock!", null);
 
-        String couponQuantityKey = COUPON_CACHE_PREFIX + couponId + ":quantity";
-        String userOrderSetKey = "SimpleFlashSale#couponUsers:" + couponId;
+        if (!userDirectory.exists(userId)) throw new ResourceNotFoundException("User not found: " + userId);
 
-        RBucket<String> quantityBucket = redissonClient.getBucket(couponQuantityKey, StringCodec.INSTANCE);
-        String redisValue = quantityBucket.get();
-        logger.info("📌 Redis Value for {}: {}", couponQuantityKey, redisValue);
+        long epoch = soldOutRegistry.epoch();
+        long result = inventoryLeaseManager.isEnabled()
+                ? buyFromLease(userId, couponId)
+                : couponInventory.reserve(userId, couponId);
 
-        RScript script = redissonClient.getScript();
-        List<Object> keys = List.of(couponQuantityKey, userOrderSetKey);
-        List<Object> args = List.of(userId);
+        Response<String> rejection = rejectReservation(result, couponId, epoch);
+        if (rejection != null) return rejection;
 
-        String luaScript = loadLuaScript("LuaScript/buy_coupon.lua");
-        Long result = script.eval(RScript.Mode.READ_WRITE, luaScript, RScript.ReturnType.INTEGER, keys, args);
+        // ✅ Generate UUID for orderId
+        UUID orderId = UUID.randomUUID();
+        OrderEvent order = orderEvent(orderId, userId, couponId);
+
+        kafkaTemplate.send(paymentTopic, partitionKey(order), order);
+        logger.info("📢 Order sent to Kafka: {}", order);
+
+        return new Response<>(200, "Order placed successfully!", orderId.toString());
+    }
+
+    /**
+     * Non-blocking buy: the user lookup, the Redis reservation and the Kafka send are chained, no request thread
+     * waits on I/O. Every failure, an unknown user included, completes the returned future.
+     */
+    public CompletableFuture<Response<String>> buyCouponAsync(String userId, Long couponId) {
+        if (soldOutRegistry.isSoldOut(couponId)) {
+            return CompletableFuture.completedFuture(new Response<>(400, "Coupon out of stock!", null));
+        }
+
+        return userDirectory.existsAsync(userId).thenCompose(exists -> exists
+                ? reserveAndOrderAsync(userId, couponId)
+                : CompletableFuture.failedFuture(new ResourceNotFoundException("User not found: " + userId)));
+    }
 
-        if (result == -1) return new Response<>(400, "Coupon out of stock!", null);
+    private CompletableFuture<Response<String>> reserveAndOrderAsync(String userId, Long couponId) {
+        long epoch = soldOutRegistry.epoch();
+        CompletionStage<Long> reservation = inventoryLeaseManager.isEnabled()
+                ? buyFromLeaseAsync(userId, couponId)
+                : couponInventory.reserveAsync(userId, couponId);
+
+        // Redis completes the reservation on its I/O thread; everything after it hops onto orderPlacementExecutor
+        return reservation.thenComposeAsync(result -> {
+            Response<String> rejection = rejectReservation(result, couponId, epoch);
+            if (rejection != null) return CompletableFuture.completedFuture(rejection);
+
+            UUID orderId = UUID.randomUUID();
+            OrderEvent order = orderEvent(orderId, userId, couponId);
+
+            return kafkaTemplate.send(paymentTopic, partitionKey(order), order)
+                    .thenApply(sendResult -> {
+                        logger.info("📢 Order sent to Kafka: {}", order);
+                        return new Response<>(200, "Order placed successfully!", orderId.toString());
+                    })
+                    .exceptionallyComposeAsync(e -> {
+                        // The order never reached Kafka, so nobody will pay for it: give the unit back
+                        logger.error("❌ Failed to send order {} to Kafka: {}", orderId, e.getMessage());
+                        return couponInventory.restoreAsync(userId, couponId).thenApplyAsync(restored -> {
+                            soldOutRegistry.publishRestock(couponId);
+                            return new Response<String>(500, "Failed to place order. Try again later.", null);
+                        }, orderPlacementExecutor);
+                    }, orderPlacementExecutor);
+        }, orderPlacementExecutor).toCompletableFuture();
+    }
+
+    /** Map a failed reservation to its response; null when the unit was reserved */
+    private Response<String> rejectReservation(long result, Long couponId, long epoch) {
+        if (result == -1) {
+            soldOutRegistry.markSoldOut(couponId, epoch);
+            return new Response<>(400, "Coupon out of stock!", null);
+        }
         if (result == -2) return new Response<>(400, "User already purchased this coupon!", null);
         if (result == -3) return new Response<>(500, "Redis returned a non-integer for quantity!", null);
+        return null;
+    }
 
-        // ✅ Generate UUID for orderId
-        UUID orderId = UUID.randomUUID();
+    private OrderEvent orderEvent(UUID orderId, String userId, Long couponId) {
         String serverId = ServerIdGenerator.getServerId(); // ✅ Get the server ID
-        String orderMessage = String.format("%s,%s,%s,%s", orderId, userId, couponId, serverId);
+        return new OrderEvent(orderId, userId, couponId, serverId);
+    }
 
-        kafkaTemplate.send(paymentTopic, orderMessage);
-        logger.info("📢 Order sent to Kafka: {}", orderMessage);
+    /** Orders with the same key land on the same partition, so they are paid in order */
+    private String partitionKey(OrderEvent order) {
+        return "coupon".equals(partitionKey) ? String.valueOf(order.getCouponId()) : order.getUserId();
+    }
 
-        return new Response<>(200, "Order placed successfully!", orderId.toString());
+    /** Serve the decrement from this node's leased stock; the per-user check still goes to Redis */
+    private long buyFromLease(String userId, Long couponId) {
+        if (!inventoryLeaseManager.tryAcquire(couponId)) return -1;
+
+        if (!couponInventory.claimBuyer(userId, couponId)) {
+            inventoryLeaseManager.release(couponId);
+            return -2;
+        }
+        return 1;
+    }
+
+    /** Lease variant of the async buy; only an empty local lease makes this wait for Redis */
+    private CompletionStage<Long> buyFromLeaseAsync(String userId, Long couponId) {
+        if (!inventoryLeaseManager.tryAcquire(couponId)) return CompletableFuture.completedFuture(-1L);
+
+        return couponInventory.claimBuyerAsync(userId, couponId).thenApply(claimed -> {
+            if (claimed) return 1L;
+            inventoryLeaseManager.release(couponId);
+            return -2L;
+        });
     }
 
     /** Sync Coupon Data to Redis */
     private void updateCouponInCache(Coupon coupon) {
-        String redisKey = COUPON_CACHE_PREFIX + coupon.getId();
-        String quantityKey = redisKey + ":quantity";
-
-//        RBucket<Coupon> couponCache = redissonClient.getBucket(redisKey);
-        RBucket<String> quantityCache = redissonClient.getBucket(quantityKey, StringCodec.INSTANCE);
+        // Metadata pages live long, so move every pod to fresh page keys on each admin change
+        catalogGeneration.bump();
+        couponSearchIndex.onCouponChanged(coupon);
 
         if (!coupon.isDeleted()) {
-//            couponCache.set(coupon);
-            quantityCache.set(String.valueOf(coupon.getQuantity()));
+            long epoch = couponInventory.setQuantity(coupon.getId(), coupon.getQuantity());
+            // Leases taken from the old total must not come back on top of the new one
+            stockResetBroadcast.publish(coupon.getId(), epoch);
+            soldOutRegistry.publishRestock(coupon.getId());
             logger.info("✅ Coupon stored in Redis: {}, Quantity: {}", coupon, coupon.getQuantity());
         } else {
-//            couponCache.delete();
-            quantityCache.delete();
+            stockResetBroadcast.publish(coupon.getId(), couponInventory.deleteQuantity(coupon.getId()));
             logger.info("❌ Coupon deleted from Redis: {}", coupon.getId());
         }
     }
 
-    public String loadLuaScript(String scriptPath) {
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(scriptPath)) {
-            if (inputStream == null) throw new RuntimeException("Lua script not found: " + scriptPath);
-            return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))
-                    .lines().collect(Collectors.joining("\n"));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load Lua script: " + scriptPath, e);
+    public int getTotalPages(int size) {
+        // Only creates and deletes change the count, and both move the catalog generation
+        long generation = catalogGeneration.current();
+        CouponCount count = couponCount;
+        if (count == null || count.generation() != generation) {
+            count = new CouponCount(generation, couponRepository.countByIsDeletedFalse());
+            couponCount = count;
         }
+        return (int) Math.ceil((double) count.total() / size);
     }
 
-    public int getTotalPages(int size) {
-        long totalCoupons = couponRepository.countByIsDeletedFalse();
-        return (int) Math.ceil((double) totalCoupons / size);
+    private record CouponCount(long generation, long total) {
     }
 
 }
\ No newline at end of file
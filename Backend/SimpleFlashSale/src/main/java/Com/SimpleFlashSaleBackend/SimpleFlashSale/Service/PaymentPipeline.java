@@ -0,0 +1,93 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Chains payments one at a time per key (user), in parallel across keys. A payment is a future-returning step, so a
+ * lane waiting for the gateway holds no thread.
+ * <p>
+ * At most {@code payment.consumer.max-in-flight} payments are queued or running. Past the pause threshold the
+ * payment listener container is paused, so the consumer stops fetching while it keeps its partitions, and it is
+ * resumed once the backlog has drained to half. The in-flight permits are the hard limit behind that.
+ */
+@Component
+public class PaymentPipeline {
+    public static final String PAYMENT_LISTENER_ID = "paymentListener";
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentPipeline.class);
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final int pauseThreshold;
+    private final int resumeThreshold;
+
+    private final Map<String, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+    private final AtomicBoolean paused = new AtomicBoolean();
+
+    public PaymentPipeline(KafkaListenerEndpointRegistry listenerRegistry,
+                           @Value("${payment.consumer.max-in-flight:50}") int maxInFlight) {
+        this.listenerRegistry = listenerRegistry;
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.pauseThreshold = Math.max(1, maxInFlight * 3 / 4);
+        this.resumeThreshold = maxInFlight / 2;
+    }
+
+    /** Queue a payment behind the previous one with the same key; blocks the caller while the pipeline is full. */
+    public CompletableFuture<Void> submit(String key, Supplier<CompletableFuture<Void>> payment) throws InterruptedException {
+        permits.acquire();
+
+        CompletableFuture<Void> done = lanes.compute(key, (k, tail) -> (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail)
+                .handle((result, e) -> null) // A failed payment must not block the rest of its lane
+                .thenCompose(ignored -> start(payment)));
+        done.whenComplete((result, e) -> {
+            lanes.remove(key, done);
+            permits.release();
+            resumeIfDrained();
+        });
+
+        if (inFlight() >= pauseThreshold && paused.compareAndSet(false, true)) {
+            container().ifPresent(MessageListenerContainer::pause);
+            logger.warn("⏸️ Payment consumer paused, {} payments in flight", inFlight());
+            resumeIfDrained(); // In case the backlog drained before the flag was set
+        }
+        return done;
+    }
+
+    private static CompletableFuture<Void> start(Supplier<CompletableFuture<Void>> payment) {
+        try {
+            return payment.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    private void resumeIfDrained() {
+        if (inFlight() <= resumeThreshold && paused.compareAndSet(true, false)) {
+            container().ifPresent(MessageListenerContainer::resume);
+            logger.info("▶️ Payment consumer resumed, {} payments in flight", inFlight());
+        }
+    }
+
+    private Optional<MessageListenerContainer> container() {
+        return Optional.ofNullable(listenerRegistry.getListenerContainer(PAYMENT_LISTENER_ID));
+    }
+}
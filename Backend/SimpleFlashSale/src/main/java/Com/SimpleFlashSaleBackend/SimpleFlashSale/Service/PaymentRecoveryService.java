@@ -0,0 +1,95 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.ParkedOrderDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponInventory;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.SoldOutRegistry;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEvent;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.ParkedOrderStore;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Response.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/** Admin side of the payment dead-letter topic: list, replay or discard orders that ran out of retries. */
+@Service
+public class PaymentRecoveryService {
+    private final ParkedOrderStore parkedOrderStore;
+    private final CouponInventory couponInventory;
+    private final SoldOutRegistry soldOutRegistry;
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentRecoveryService.class);
+
+    @Value("${kafka.topic.payment}")
+    private String paymentTopic;
+
+    @Value("${kafka.producer.partition-key:user}")
+    private String partitionKey;
+
+    public PaymentRecoveryService(ParkedOrderStore parkedOrderStore, CouponInventory couponInventory,
+                                  SoldOutRegistry soldOutRegistry, KafkaTemplate<String, OrderEvent> kafkaTemplate) {
+        this.parkedOrderStore = parkedOrderStore;
+        this.couponInventory = couponInventory;
+        this.soldOutRegistry = soldOutRegistry;
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public Response<List<ParkedOrderDTO>> getParkedOrders() {
+        return new Response<>(200, "Parked orders retrieved successfully!", parkedOrderStore.getAll());
+    }
+
+    /**
+     * Send a parked order through payment again. Its stock was given back when it was dead-lettered,
+     * so a unit is reserved again first; the order stays parked if that is no longer possible.
+     */
+    public Response<String> replay(String orderId) {
+        Optional<ParkedOrderDTO> found = parkedOrderStore.get(orderId);
+        if (found.isEmpty()) return new Response<>(404, "Parked order not found: " + orderId, null);
+        ParkedOrderDTO parked = found.get();
+
+        long result = couponInventory.reserve(parked.getUserId(), parked.getCouponId());
+        if (result == -1) return new Response<>(409, "Coupon is sold out, order stays parked", orderId);
+        if (result == -2) return new Response<>(409, "User already holds this coupon, order stays parked", orderId);
+        if (result != 1) return new Response<>(500, "Failed to reserve stock, order stays parked", orderId);
+
+        if (!parkedOrderStore.remove(orderId)) {
+            // Replayed or discarded concurrently: hand the unit back
+            restore(parked);
+            return new Response<>(404, "Parked order not found: " + orderId, null);
+        }
+
+        OrderEvent order = new OrderEvent(UUID.fromString(orderId), parked.getUserId(), parked.getCouponId(), parked.getServerId());
+        String key = "coupon".equals(partitionKey) ? String.valueOf(order.getCouponId()) : order.getUserId();
+        try {
+            kafkaTemplate.send(paymentTopic, key, order).join();
+        } catch (Exception e) {
+            logger.error("❌ Failed to replay order {}: {}", orderId, e.getMessage());
+            restore(parked);
+            parkedOrderStore.park(parked);
+            return new Response<>(500, "Failed to replay order, it stays parked: " + e.getMessage(), orderId);
+        }
+
+        logger.info("🔁 Replayed parked order {}", orderId);
+        return new Response<>(200, "Order replayed successfully!", orderId);
+    }
+
+    /** Drop a parked order for good; its stock was already given back when it was dead-lettered. */
+    public Response<String> discard(String orderId) {
+        if (!parkedOrderStore.remove(orderId)) return new Response<>(404, "Parked order not found: " + orderId, null);
+
+        logger.info("🗑️ Discarded parked order {}", orderId);
+        return new Response<>(200, "Order discarded successfully!", orderId);
+    }
+
+    private void restore(ParkedOrderDTO parked) {
+        if (couponInventory.restore(parked.getUserId(), parked.getCouponId()) == 1) {
+            soldOutRegistry.publishRestock(parked.getCouponId());
+        }
+    }
+}
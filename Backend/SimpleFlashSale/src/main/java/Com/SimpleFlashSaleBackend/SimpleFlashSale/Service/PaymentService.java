@@ -1,32 +1,51 @@
 package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
 
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket.OrderStatusWebSocketHandler;
-import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.Coupon;
-import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.User;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.ParkedOrderDTO;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.UserCoupon;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Exception.ResourceNotFoundException;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponInventory;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponQuantityWriteBehind;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.SoldOutRegistry;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEvent;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.ParkedOrderStore;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.PaymentGateway;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.PaymentResult;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.PaymentRetryRouter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.CouponRepository;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.UserCouponRepository;
 import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.UserRepository;
-import org.redisson.api.RBucket;
-import org.redisson.api.RScript;
-import org.redisson.api.RedissonClient;
-import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,96 +53,328 @@ public class PaymentService {
     private final UserRepository userRepository;
     private final CouponRepository couponRepository;
     private final UserCouponRepository userCouponRepository;
-    private final RedissonClient redissonClient;
+    private final CouponInventory couponInventory;
+    private final CouponQuantityWriteBehind couponQuantityWriteBehind;
+    private final SoldOutRegistry soldOutRegistry;
     private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentPipeline paymentPipeline;
+    private final PaymentGateway paymentGateway;
+    private final ParkedOrderStore parkedOrderStore;
+    private final PaymentRetryRouter paymentRetryRouter;
+    private final Executor paymentExecutor;
+
+    private static final String INSERT_USER_COUPON =
+            "INSERT IGNORE INTO user_coupons (id, user_id, coupon_id, payment_success, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String DEBIT_CREDIT = "UPDATE users SET credit = credit - ? WHERE id = ? AND credit >= ?";
 
-    private static final String COUPON_CACHE_PREFIX = "SimpleFlashSale#coupon:";
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
     public PaymentService(UserRepository userRepository, CouponRepository couponRepository,
-                          UserCouponRepository userCouponRepository, RedissonClient redissonClient,
-                          StringRedisTemplate redisTemplate) {
+                          UserCouponRepository userCouponRepository, CouponInventory couponInventory,
+                          CouponQuantityWriteBehind couponQuantityWriteBehind,
+                          SoldOutRegistry soldOutRegistry, StringRedisTemplate redisTemplate,
+                          JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          PaymentPipeline paymentPipeline,
+                          PaymentGateway paymentGateway, ParkedOrderStore parkedOrderStore,
+                          PaymentRetryRouter paymentRetryRouter, @Qualifier("paymentExecutor") Executor paymentExecutor) {
         this.userRepository = userRepository;
         this.couponRepository = couponRepository;
         this.userCouponRepository = userCouponRepository;
-        this.redissonClient = redissonClient;
+        this.couponInventory = couponInventory;
+        this.couponQuantityWriteBehind = couponQuantityWriteBehind;
+        this.soldOutRegistry = soldOutRegistry;
         this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.paymentPipeline = paymentPipeline;
+        this.paymentGateway = paymentGateway;
+        this.parkedOrderStore = parkedOrderStore;
+        this.paymentRetryRouter = paymentRetryRouter;
+        this.paymentExecutor = paymentExecutor;
+    }
+
+    /**
+     * Hands each order to the payment pipeline and returns at once; the record's offset is acknowledged when its
+     * payment completes. Orders of one user run in sequence, different users run in parallel.
+     * <p>
+     * A payment that fails on an unexpected error (database, gateway) is forwarded to the next retry topic and
+     * retried there after an exponential backoff, so it never holds up the orders behind it on this partition.
+     * After the last attempt it lands on the dead-letter topic.
+     */
+    @RetryableTopic(attempts = "${payment.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${payment.retry.delay-ms:1000}",
+                    multiplierExpression = "${payment.retry.multiplier:2}",
+                    maxDelayExpression = "${payment.retry.max-delay-ms:30000}"),
+            kafkaTemplate = "paymentRetryKafkaTemplate",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+    @KafkaListener(id = PaymentPipeline.PAYMENT_LISTENER_ID, topics = "${kafka.topic.payment}", groupId = "payment-group",
+            autoStartup = "#{!${payment.consumer.batch.enabled:false}}",
+            concurrency = "${payment.consumer.concurrency:3}")
+    public CompletableFuture<Void> listenForPayments(ConsumerRecord<String, OrderEvent> record) throws InterruptedException {
+        OrderEvent order = record.value();
+        return paymentPipeline.submit(order.getUserId(), () -> processPayment(order))
+                .exceptionallyAsync(e -> {
+                    retryLater(record, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    return null;
+                }, paymentExecutor);
     }
 
-    @KafkaListener(topics = "${kafka.topic.payment}", groupId = "payment-group")
-    @Transactional
-    public void listenForPayments(String message) {
-        processPaymentAsync(message);
+    private void retryLater(ConsumerRecord<String, OrderEvent> record, Throwable cause) {
+        OrderEvent order = record.value();
+        logger.warn("⚠️ Payment for Order ID: {} failed, scheduling a retry: {}", order.getOrderId(), cause.getMessage());
+        try {
+            paymentRetryRouter.forward(record, cause instanceof Exception exception ? exception : new RuntimeException(cause));
+        } catch (Exception e) {
+            // Could not even reach the retry topic: settle it like a dead letter so the stock is not lost
+            logger.error("❌ Failed to forward Order ID: {} to the retry topic: {}", order.getOrderId(), e.getMessage());
+            giveUp(order, cause.getMessage());
+        }
     }
 
-    @Async
-    public void processPaymentAsync(String message) {
-        String[] data = message.split(",");
-        UUID orderId = UUID.fromString(data[0]);
-        String userId = data[1];
-        Long couponId = Long.parseLong(data[2]);
-        String serverId = data[3];
+    private CompletableFuture<Void> processPayment(OrderEvent order) {
+        logger.info("🛒 Processing payment for Order ID: {}", order.getOrderId());
+
+        // Nothing holds a thread while the gateway works; settlement hops onto paymentExecutor when it answers
+        // The order ID as idempotency key: a retried or redelivered order is never charged twice
+        return paymentGateway.charge(order, order.getOrderId().toString())
+                .thenApplyAsync(result -> result.approved()
+                        ? transactionTemplate.execute(status -> settle(order))
+                        : declined(order, result), paymentExecutor)
+                .thenAccept(this::notifyBuyer)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    // Unexpected errors (database, gateway) fail the future and are retried by listenForPayments
+                    if (!(cause instanceof ResourceNotFoundException)) throw new CompletionException(cause);
+
+                    logger.error("⚠️ Error processing payment: {}", cause.getMessage());
+                    publishToRedis(order.getServerId(), order.getOrderId().toString(), "Payment processing error: " + cause.getMessage());
+                    return null;
+                });
+    }
+
+    /** Out of retries: give the stock back, tell the buyer, and park the order for an admin to replay or discard. */
+    @DltHandler
+    public void handleDeadOrder(@Payload(required = false) OrderEvent order,
+                                @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) byte[] error) {
+        if (order == null) {
+            logger.error("❌ Undecodable record on the payment dead-letter topic, dropped");
+            return;
+        }
+
+        String reason = error == null ? "unknown error" : new String(error, StandardCharsets.UTF_8);
+        logger.error("❌ Payment for Order ID: {} failed after all retries: {}", order.getOrderId(), reason);
+        giveUp(order, reason);
+    }
+
+    private void giveUp(OrderEvent order, String reason) {
+        if (isSettled(order)) {
+            // Paid before a later step failed: the unit is sold, so neither restore it nor park the order
+            logger.warn("⚠️ Order ID: {} is already paid, not giving it up: {}", order.getOrderId(), reason);
+            publishToRedis(order.getServerId(), order.getOrderId().toString(), "Payment successful!");
+            return;
+        }
+
+        restoreStockInRedis(order.getUserId(), order.getCouponId());
+        parkedOrderStore.park(new ParkedOrderDTO(order.getOrderId().toString(), order.getUserId(), order.getCouponId(),
+                order.getServerId(), reason, System.currentTimeMillis()));
+        publishToRedis(order.getServerId(), order.getOrderId().toString(), "Payment failed: Order could not be processed.");
+    }
 
+    private boolean isSettled(OrderEvent order) {
         try {
-            logger.info("🛒 Processing payment for Order ID: {}", orderId);
+            return userCouponRepository.existsById(order.getOrderId().toString());
+        } catch (Exception e) {
+            // Unknown: treat as unpaid, so the stock comes back and an admin sees the parked order
+            logger.error("❌ Could not check whether Order ID: {} was paid: {}", order.getOrderId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private PaymentOutcome settle(OrderEvent order) {
+        String userId = order.getUserId();
+        Long couponId = order.getCouponId();
+
+        // A retry or redelivery of an order that already committed: report it paid, never debit or journal twice
+        if (userCouponRepository.existsById(order.getOrderId().toString())) {
+            logger.info("🔁 Order ID: {} was already settled, not debiting again", order.getOrderId());
+            return new PaymentOutcome(order, "Payment successful!", false);
+        }
+
+        int price = couponRepository.findPriceById(couponId)
+                .orElseThrow(() -> new ResourceNotFoundException("Coupon not found: " + couponId));
+
+        // Check and deduct in one conditional UPDATE, so concurrent orders of one user cannot overspend
+        if (userRepository.debitCredit(userId, price) == 0) {
+            if (!userRepository.existsById(userId)) throw new ResourceNotFoundException("User not found: " + userId);
+
+            logger.error("❌ Payment failed for Order ID: {}, Insufficient credit", order.getOrderId());
+            return new PaymentOutcome(order, "Payment failed: Insufficient credit.", true);
+        }
+
+        // ✅ Save UserCoupon with UUID as ID; references avoid loading the user and coupon rows
+        UserCoupon userCoupon = new UserCoupon();
+        userCoupon.setId(order.getOrderId().toString());
+        userCoupon.setUser(userRepository.getReferenceById(userId));
+        userCoupon.setCoupon(couponRepository.getReferenceById(couponId));
+        userCoupon.setPaymentSuccess(true);
+        userCouponRepository.save(userCoupon);
+
+        // Journaled in this transaction, folded into the coupon row later by the write-behind flush
+        couponQuantityWriteBehind.recordSold(couponId, 1);
+
+        logger.info("✅ Payment success for Order ID: {}", order.getOrderId());
+        return new PaymentOutcome(order, "Payment successful!", false);
+    }
 
-            // Simulate a payment delay
-            Thread.sleep(3000);
+    /**
+     * Batch mode: settles a whole poll in one transaction. Prices come from one IN query, credits are debited by a
+     * JDBC batch of conditional UPDATEs, order rows go in as a JDBC batch, and the offsets are committed only after
+     * the transaction has committed.
+     * <p>
+     * Settling is idempotent per order ID: a record repeated within a poll is paid once, and an order already in
+     * {@code user_coupons} (a batch redelivered after its transaction committed) is reported paid without a charge or a debit.
+     */
+    @KafkaListener(topics = "${kafka.topic.payment}", groupId = "payment-group",
+            containerFactory = "paymentBatchListenerFactory",
+            autoStartup = "${payment.consumer.batch.enabled:false}",
+            properties = "max.poll.records=${payment.consumer.batch.max-records:500}")
+    public void listenForPaymentBatch(List<OrderEvent> records) {
+        // Records that failed to decode arrive as null and are skipped; a record repeated in the poll is paid once
+        Map<UUID, OrderEvent> unique = new LinkedHashMap<>();
+        records.stream().filter(Objects::nonNull).forEach(order -> unique.putIfAbsent(order.getOrderId(), order));
+        if (unique.isEmpty()) return;
+        logger.info("🛒 Processing payment batch of {} orders", unique.size());
 
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userId));
-            Coupon coupon = couponRepository.findById(couponId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Coupon not found: " + couponId));
+        // Orders settled before this batch was redelivered are reported paid again, without charging or debiting
+        List<PaymentOutcome> outcomes = new ArrayList<>(unique.size());
+        Set<String> settled = Set.copyOf(userCouponRepository.findExistingIds(
+                unique.keySet().stream().map(UUID::toString).toList()));
+        List<OrderEvent> orders = new ArrayList<>(unique.size());
+        for (OrderEvent order : unique.values()) {
+            if (settled.contains(order.getOrderId().toString())) {
+                logger.info("🔁 Order ID: {} was already settled, not charging again", order.getOrderId());
+                outcomes.add(new PaymentOutcome(order, "Payment successful!", false));
+            } else {
+                orders.add(order);
+            }
+        }
 
-            if (user.getCredit() < coupon.getPrice()) {
-                logger.error("❌ Payment failed for Order ID: {}, Insufficient credit", orderId);
-                publishToRedis(serverId, orderId.toString(), "Payment failed: Insufficient credit.");
+        // Charge the whole batch at once and wait for the slowest answer; failed charges are read one by one below
+        List<CompletableFuture<PaymentResult>> charges = orders.stream()
+                .map(order -> paymentGateway.charge(order, order.getOrderId().toString()))
+                .toList();
+        CompletableFuture.allOf(charges.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
 
-                // Restore coupon stock in Redis using Lua script
-                restoreStockInRedis(userId, couponId);
-                return;
+        List<OrderEvent> approved = new ArrayList<>(orders.size());
+        Map<OrderEvent, String> gatewayErrors = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            CompletableFuture<PaymentResult> charge = charges.get(i);
+            if (charge.isCompletedExceptionally()) {
+                String reason = charge.handle((result, e) ->
+                        (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).getMessage()).join();
+                logger.error("⚠️ Error processing payment for Order ID: {}: {}", orders.get(i).getOrderId(), reason);
+                gatewayErrors.put(orders.get(i), reason);
+                continue;
             }
 
-            // Deduct credit and save to MySQL
-            user.setCredit(user.getCredit() - coupon.getPrice());
-            userRepository.save(user);
-
-            // ✅ Save UserCoupon with UUID as ID
-            UserCoupon userCoupon = new UserCoupon();
-            userCoupon.setId(orderId.toString());
-            userCoupon.setUser(user);
-            userCoupon.setCoupon(coupon);
-            userCoupon.setPaymentSuccess(true);
-            userCouponRepository.save(userCoupon);
-
-            synchronized (this) {
-                coupon.setQuantity(coupon.getQuantity() - 1);
-                couponRepository.save(coupon);
+            PaymentResult result = charge.join();
+            if (!result.approved()) {
+                outcomes.add(declined(orders.get(i), result));
+            } else {
+                approved.add(orders.get(i));
             }
+        }
+        if (!approved.isEmpty()) outcomes.addAll(transactionTemplate.execute(status -> settleBatch(approved)));
 
-            logger.info("✅ Payment success for Order ID: {}", orderId);
-            publishToRedis(serverId, orderId.toString(), "Payment successful!");
+        // Notify buyers only once the batch is durable; a failed batch throws above and is redelivered
+        outcomes.forEach(this::notifyBuyer);
+        // The retry topics are consumed by listenForPayments' containers, which are stopped in batch mode, so a
+        // gateway error goes straight to the dead-letter path: stock back, order parked for an admin to replay
+        gatewayErrors.forEach(this::giveUp);
+    }
 
-        } catch (Exception e) {
-            logger.error("⚠️ Error processing payment: {}", e.getMessage());
-            publishToRedis(serverId, orderId.toString(), "Payment processing error: " + e.getMessage());
+    private List<PaymentOutcome> settleBatch(List<OrderEvent> orders) {
+        Set<Long> couponIds = orders.stream().map(OrderEvent::getCouponId).collect(Collectors.toSet());
+        Map<Long, Integer> prices = couponRepository.findPricesByIdIn(couponIds).stream()
+                .collect(Collectors.toMap(CouponRepository.CouponPrice::getId, CouponRepository.CouponPrice::getPrice));
+
+        // One conditional debit per order, run in order, so several orders by one user in a batch add up
+        List<OrderEvent> priced = orders.stream().filter(order -> prices.containsKey(order.getCouponId())).toList();
+        int[] debited = jdbcTemplate.batchUpdate(DEBIT_CREDIT, priced.stream()
+                .map(order -> {
+                    int price = prices.get(order.getCouponId());
+                    return new Object[]{price, order.getUserId(), price};
+                })
+                .toList());
+
+        Map<OrderEvent, Boolean> paid = new HashMap<>();
+        for (int i = 0; i < priced.size(); i++) paid.put(priced.get(i), debited[i] > 0);
+        Set<String> unpaidUsers = paid.entrySet().stream().filter(entry -> !entry.getValue())
+                .map(entry -> entry.getKey().getUserId()).collect(Collectors.toSet());
+        Set<String> knownUsers = unpaidUsers.isEmpty() ? Set.of() : Set.copyOf(userRepository.findExistingIds(unpaidUsers));
+
+        List<PaymentOutcome> outcomes = new ArrayList<>(orders.size());
+        List<Object[]> userCouponRows = new ArrayList<>();
+        Map<Long, Integer> soldPerCoupon = new HashMap<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (OrderEvent order : orders) {
+            Boolean success = paid.get(order);
+            if (success == null || (!success && !knownUsers.contains(order.getUserId()))) {
+                String missing = success == null ? "Coupon not found: " + order.getCouponId() : "User not found: " + order.getUserId();
+                logger.error("⚠️ Error processing payment: {}", missing);
+                outcomes.add(new PaymentOutcome(order, "Payment processing error: " + missing, false));
+                continue;
+            }
+
+            if (!success) {
+                logger.error("❌ Payment failed for Order ID: {}, Insufficient credit", order.getOrderId());
+                outcomes.add(new PaymentOutcome(order, "Payment failed: Insufficient credit.", true));
+                continue;
+            }
+
+            userCouponRows.add(new Object[]{order.getOrderId().toString(), order.getUserId(), order.getCouponId(), true, now});
+            soldPerCoupon.merge(order.getCouponId(), 1, Integer::sum);
+            outcomes.add(new PaymentOutcome(order, "Payment successful!", false));
+        }
+
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_USER_COUPON, userCouponRows);
+        for (int i = 0; i < inserted.length; i++) {
+            // Settled by another consumer since the listener checked: roll back its debit with the batch and let the
+            // redelivery find the order settled
+            if (inserted[i] == 0) throw new IllegalStateException("Order ID: " + userCouponRows.get(i)[0] + " settled concurrently");
         }
+        couponQuantityWriteBehind.recordSold(soldPerCoupon);
+
+        logger.info("✅ Payment batch settled: {} paid, {} rejected", userCouponRows.size(), orders.size() - userCouponRows.size());
+        return outcomes;
+    }
+
+    private record PaymentOutcome(OrderEvent order, String status, boolean restoreStock) {
+    }
+
+    private PaymentOutcome declined(OrderEvent order, PaymentResult result) {
+        logger.error("❌ Payment failed for Order ID: {}, {}", order.getOrderId(), result.reason());
+        return new PaymentOutcome(order, "Payment failed: " + result.reason(), true);
+    }
+
+    /** Runs after commit: give back the stock of a rejected order and tell the buyer. */
+    private void notifyBuyer(PaymentOutcome outcome) {
+        OrderEvent order = outcome.order();
+        // Restore coupon stock in Redis using Lua script
+        if (outcome.restoreStock()) restoreStockInRedis(order.getUserId(), order.getCouponId());
+        publishToRedis(order.getServerId(), order.getOrderId().toString(), outcome.status());
     }
 
     private void restoreStockInRedis(String userId, Long couponId) {
         try {
-            RScript script = redissonClient.getScript();
-            List<Object> keys = List.of(
-                    COUPON_CACHE_PREFIX + couponId + ":quantity",
-                    "SimpleFlashSale#couponUsers:" + couponId
-            );
-            List<Object> args = List.of(userId);
-
-            String luaScript = loadLuaScript("LuaScript/restore_stock.lua");
-            Long result = script.eval(RScript.Mode.READ_WRITE, luaScript, RScript.ReturnType.INTEGER, keys, args);
+            long result = couponInventory.restore(userId, couponId);
 
             logger.info("🔄 Redis Lua execution result: {}", result);
             if (result == 1) {
+                soldOutRegistry.publishRestock(couponId);
                 logger.info("✅ Stock restored for coupon {} and user {} removed from purchase set.", couponId, userId);
             } else {
                 logger.warn("⚠️ Redis Lua script execution returned unexpected result: {}", result);
@@ -137,17 +388,12 @@ public class PaymentService {
         String message = String.format("{\"serverId\":\"%s\", \"orderId\":\"%s\", \"status\":\"%s\"}",
                 serverId, orderId, status);
         String channel = "websocket-updates-" + serverId;
-        redisTemplate.convertAndSend(channel, message);
-        logger.info("📢 Published message to Redis channel: {}, status: {}", channel, status);
-    }
-
-    public String loadLuaScript(String scriptPath) {
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(scriptPath)) {
-            if (inputStream == null) throw new RuntimeException("Lua script not found: " + scriptPath);
-            return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))
-                    .lines().collect(Collectors.joining("\n"));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load Lua script: " + scriptPath, e);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            logger.info("📢 Published message to Redis channel: {}, status: {}", channel, status);
+        } catch (Exception e) {
+            // Only the notification is lost; the payment is already settled and must not be retried because of it
+            logger.error("❌ Failed to publish status of Order ID: {} to {}: {}", orderId, channel, e.getMessage());
         }
     }
 }
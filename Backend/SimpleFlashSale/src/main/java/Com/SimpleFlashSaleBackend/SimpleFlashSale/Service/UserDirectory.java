@@ -0,0 +1,79 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory answer to "does this user exist?" for the buy hot path.
+ * Preloaded with every user ID at startup and kept in sync on registration; IDs created on other pods are
+ * picked up from MySQL on first sight, and unknown IDs are remembered briefly so they cannot hammer the DB.
+ */
+@Service
+public class UserDirectory {
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    private final UserRepository userRepository;
+    private final Executor lookupExecutor;
+
+    private final Set<String> knownUsers = ConcurrentHashMap.newKeySet();
+    private final Cache<String, Boolean> unknownUsers = Caffeine.newBuilder()
+            .expireAfterWrite(30, TimeUnit.SECONDS)
+            .maximumSize(100_000)
+            .build();
+
+    public UserDirectory(UserRepository userRepository, @Qualifier("userLookupExecutor") Executor lookupExecutor) {
+        this.userRepository = userRepository;
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        List<String> ids = userRepository.findAllIds();
+        knownUsers.addAll(ids);
+        logger.info("✅ User directory preloaded with {} users", ids.size());
+    }
+
+    public boolean exists(String userId) {
+        if (knownUsers.contains(userId)) return true;
+        if (unknownUsers.getIfPresent(userId) != null) return false;
+
+        // Not seen yet on this pod (e.g. registered elsewhere): ask MySQL once
+        if (userRepository.existsById(userId)) {
+            knownUsers.add(userId);
+            return true;
+        }
+        unknownUsers.put(userId, Boolean.TRUE);
+        return false;
+    }
+
+    /** Same answer as {@link #exists}; only an unknown ID goes to MySQL, on the lookup executor. */
+    public CompletableFuture<Boolean> existsAsync(String userId) {
+        if (knownUsers.contains(userId)) return CompletableFuture.completedFuture(true);
+        if (unknownUsers.getIfPresent(userId) != null) return CompletableFuture.completedFuture(false);
+        try {
+            return CompletableFuture.supplyAsync(() -> exists(userId), lookupExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public void register(String userId) {
+        knownUsers.add(userId);
+        unknownUsers.invalidate(userId);
+    }
+}
@@ -22,12 +22,14 @@ import java.util.stream.Collectors;
 public class UserService {
     private final UserRepository userRepository;
     private final KeycloakService keycloakService;
+    private final UserDirectory userDirectory;
 
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
-    public UserService(UserRepository userRepository, KeycloakService keycloakService) {
+    public UserService(UserRepository userRepository, KeycloakService keycloakService, UserDirectory userDirectory) {
         this.userRepository = userRepository;
         this.keycloakService = keycloakService;
+        this.userDirectory = userDirectory;
     }
 
     // ✅ Register user
@@ -42,6 +44,7 @@ public class UserService {
             User user = UserMapper.toEntity(userDTO);
             user.setId(keycloakUserId);
             User savedUser = userRepository.save(user);
+            userDirectory.register(savedUser.getId());
 
             return new Response<>(200, "User registered successfully!", UserMapper.toDTO(savedUser));
         } catch (Exception e) {
@@ -1,7 +1,15 @@
 package Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -9,29 +17,86 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Order status on {@code /ws/orders/{orderId}}. Sessions are indexed by the order ID in their path, so an update
+ * is one map lookup and goes only to the browsers waiting on that order, however many sessions the pod holds.
+ * <p>
+ * The Redis listener never writes to a socket. It leaves the frame in the session's send buffer and returns;
+ * one send task per session drains it on the send executor, so writes to a session never overlap. Every frame
+ * on a session is a status of the same order, so a newer one replaces a frame still waiting and the buffer never
+ * holds more than one. A session whose write takes longer than the send time limit, or fails, is closed.
+ * <p>
+ * The browser only opens the socket once the buy request has answered, so a fast payment can be decided before
+ * anyone listens. The last status of each order is kept for the replay TTL and sent to a session as it connects.
+ */
 @Component
 public class OrderStatusWebSocketHandler extends TextWebSocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(OrderStatusWebSocketHandler.class);
-    private final ConcurrentMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    private final Executor sendExecutor;
+    private final long sendTimeLimitMs;
+    private final Counter evictions;
+    private final Cache<String, TextMessage> lastStatus;
+
+    private final ConcurrentMap<String, OrderSession> sessions = new ConcurrentHashMap<>();
+    // Usually one session per order; a reconnect or second tab briefly adds another
+    private final ConcurrentMap<String, Set<OrderSession>> sessionsByOrder = new ConcurrentHashMap<>();
+    private final Set<OrderSession> sending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+
+    public OrderStatusWebSocketHandler(@Qualifier("orderStatusSendExecutor") Executor sendExecutor,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${order-status.push.send-time-limit-ms:5000}") long sendTimeLimitMs,
+                                       @Value("${order-status.push.replay-ttl-ms:60000}") long replayTtlMs) {
+        this.sendExecutor = sendExecutor;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.lastStatus = Caffeine.newBuilder()
+                .expireAfterWrite(replayTtlMs, TimeUnit.MILLISECONDS)
+                .maximumSize(100_000)
+                .build();
+        this.evictions = Counter.builder("websocket.orders.evictions").register(meterRegistry);
+        Gauge.builder("websocket.orders.send.queue", queuedFrames, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("websocket.orders.sessions", sessions, ConcurrentMap::size).register(meterRegistry);
+    }
 
     @Override
-    public void afterConnectionEstablished(WebSocketSession session) {
-        String sessionId = session.getId();
-        sessions.put(sessionId, session);
-        logger.info("✅ WebSocket connection established: {}", sessionId);
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        String orderId = orderId(session);
+        if (orderId == null) {
+            logger.warn("⚠️ Closing WebSocket session {} without an order ID: {}", session.getId(), session.getUri());
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+
+        OrderSession orderSession = new OrderSession(session, orderId);
+        sessions.put(session.getId(), orderSession);
+        // Added inside compute so a concurrent close of the last session cannot drop the set under us
+        sessionsByOrder.compute(orderId, (id, orderSessions) -> {
+            Set<OrderSession> subscribed = orderSessions != null ? orderSessions : ConcurrentHashMap.newKeySet();
+            subscribed.add(orderSession);
+            return subscribed;
+        });
+        // Read after registering: an update racing this connect is either replayed here or routed to the session
+        TextMessage missed = lastStatus.getIfPresent(orderId);
+        if (missed != null) orderSession.offer(missed);
+        logger.info("✅ WebSocket connection established: {} for Order ID: {}", session.getId(), orderId);
         logger.info("🔗 Current active WebSocket sessions: {}", sessions.size());
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-        String payload = message.getPayload();
-        logger.info("📩 Received message from session {}: {}", session.getId(), payload);
-
-        // Example: Log the current active sessions
-        logger.info("🔗 Active WebSocket sessions: {}", sessions.size());
+        logger.info("📩 Received message from session {}: {}", session.getId(), message.getPayload());
     }
 
     @Override
@@ -41,27 +106,128 @@ public class OrderStatusWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        String sessionId = session.getId();
-        sessions.remove(sessionId);
-        logger.info("🔌 WebSocket connection closed: {}, Reason: {}", sessionId, status);
+        OrderSession orderSession = sessions.remove(session.getId());
+        if (orderSession != null) {
+            sessionsByOrder.computeIfPresent(orderSession.orderId, (id, orderSessions) -> {
+                orderSessions.remove(orderSession);
+                return orderSessions.isEmpty() ? null : orderSessions;
+            });
+            orderSession.discard();
+        }
+        logger.info("🔌 WebSocket connection closed: {}, Reason: {}", session.getId(), status);
         logger.info("🔗 Remaining active WebSocket sessions: {}", sessions.size());
     }
 
+    /** Queue the update for the order's sessions; returns without waiting for any socket. */
     public void sendOrderUpdate(String orderId, String message) {
-        logger.info("📢 Sending WebSocket update to all clients: Order ID: {}, Message: {}", orderId, message);
-        logger.info("🔗 Active WebSocket sessions before sending: {}", sessions.size());
-
-        for (WebSocketSession session : sessions.values()) {
-            if (session.isOpen()) {
-                try {
-                    session.sendMessage(new TextMessage("Order " + orderId + " update: " + message));
-                    logger.info("✅ WebSocket message sent to session: {}", session.getId());
-                } catch (IOException e) {
-                    logger.error("❌ Failed to send WebSocket message to: {}. Error: {}", session.getId(), e.getMessage(), e);
+        TextMessage update = new TextMessage("Order " + orderId + " update: " + message);
+        lastStatus.put(orderId, update); // Before routing, see afterConnectionEstablished
+
+        Set<OrderSession> orderSessions = sessionsByOrder.get(orderId);
+        if (orderSessions == null) {
+            logger.info("🕓 No WebSocket session yet for Order ID: {}, kept for replay: {}", orderId, message);
+            return;
+        }
+
+        for (OrderSession orderSession : orderSessions) {
+            orderSession.offer(update);
+        }
+    }
+
+    public int activeSessions() {
+        return sessions.size();
+    }
+
+    /** Closes sessions stuck in a write past the time limit, which frees their send thread. */
+    @Scheduled(fixedDelayString = "${order-status.push.slow-check-ms:1000}")
+    public void evictSlowSessions() {
+        long now = System.currentTimeMillis();
+        for (OrderSession orderSession : sending) {
+            long startedAt = orderSession.sendStartedAt;
+            if (startedAt != 0 && now - startedAt > sendTimeLimitMs) {
+                evict(orderSession, "send took more than " + sendTimeLimitMs + " ms");
+            }
+        }
+    }
+
+    private void evict(OrderSession orderSession, String reason) {
+        evictions.increment();
+        logger.warn("⚠️ Closing slow WebSocket session {} for Order ID: {}: {}",
+                orderSession.session.getId(), orderSession.orderId, reason);
+        try {
+            orderSession.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to close WebSocket session {}: {}", orderSession.session.getId(), e.getMessage());
+        }
+    }
+
+    /** Last path segment of {@code /ws/orders/{orderId}}. */
+    private static String orderId(WebSocketSession session) {
+        URI uri = session.getUri();
+        if (uri == null || uri.getPath() == null) return null;
+        String path = uri.getPath();
+        String orderId = path.substring(path.lastIndexOf('/') + 1);
+        return orderId.isEmpty() ? null : orderId;
+    }
+
+    private final class OrderSession {
+        private final WebSocketSession session;
+        private final String orderId;
+        private final AtomicReference<TextMessage> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendStartedAt;
+
+        private OrderSession(WebSocketSession session, String orderId) {
+            this.session = session;
+            this.orderId = orderId;
+        }
+
+        private void offer(TextMessage update) {
+            if (pending.getAndSet(update) == null) queuedFrames.incrementAndGet();
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) return;
+            try {
+                sendExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                logger.error("❌ Send executor rejected WebSocket session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        private void drain() {
+            try {
+                TextMessage next;
+                while ((next = pending.getAndSet(null)) != null) {
+                    queuedFrames.decrementAndGet();
+                    if (session.isOpen()) send(next);
                 }
-            } else {
-                logger.warn("⚠️ Skipping closed WebSocket session: {}", session.getId());
+            } finally {
+                draining.set(false);
             }
+            // An update that arrived after the last check but before the flag was cleared
+            if (pending.get() != null) scheduleDrain();
+        }
+
+        private void send(TextMessage update) {
+            sending.add(this);
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                session.sendMessage(update);
+                logger.debug("✅ WebSocket update sent to session {} for Order ID: {}", session.getId(), orderId);
+            } catch (IOException | RuntimeException e) {
+                // A write aborted by closing the session (client gone, or evicted as slow) needs no second close
+                if (session.isOpen()) evict(this, "send failed: " + e.getMessage());
+            } finally {
+                sendStartedAt = 0;
+                sending.remove(this);
+            }
+        }
+
+        private void discard() {
+            if (pending.getAndSet(null) != null) queuedFrames.decrementAndGet();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponInventory;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.StockChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every push interval, reads the current stock of the coupons that changed on this node and broadcasts it to all
+ * pods in one message. Absolute quantities are sent rather than deltas, so coalescing and lost messages can
+ * never make a client's count drift.
+ */
+@Component
+public class StockUpdatePublisher {
+    public static final String STOCK_CHANNEL = "SimpleFlashSale#stock-updates";
+
+    private static final Logger logger = LoggerFactory.getLogger(StockUpdatePublisher.class);
+
+    private final StockChangeFeed stockChangeFeed;
+    private final CouponInventory couponInventory;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    public StockUpdatePublisher(StockChangeFeed stockChangeFeed, CouponInventory couponInventory,
+                                StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.stockChangeFeed = stockChangeFeed;
+        this.couponInventory = couponInventory;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.push.interval-ms:250}")
+    public void publishChanges() {
+        List<Long> changed = stockChangeFeed.drain();
+        if (changed.isEmpty()) return;
+
+        try {
+            Map<Long, Integer> quantities = couponInventory.getQuantities(changed);
+            if (quantities.isEmpty()) return;
+            redisTemplate.convertAndSend(STOCK_CHANNEL, objectMapper.writeValueAsString(quantities));
+        } catch (Exception e) {
+            // Put them back so the next interval retries
+            changed.forEach(stockChangeFeed::markChanged);
+            logger.warn("⚠️ Failed to publish stock updates: {}", e.getMessage());
+        }
+    }
+}
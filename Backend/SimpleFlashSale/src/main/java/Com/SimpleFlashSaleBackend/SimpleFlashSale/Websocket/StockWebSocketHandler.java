@@ -0,0 +1,177 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponInventory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Live stock for the coupons a browser has on screen, on {@code /ws/stock}.
+ * <p>
+ * The client sends {@code {"subscribe":[1,2,3]}} (replacing any earlier list) and gets the current stock right
+ * away, then {@code {"stock":{"1":41}}} messages as it changes. Updates from all pods arrive over Redis, are
+ * coalesced per coupon and flushed once per push interval, so a coupon is pushed at most once per interval no
+ * matter how fast it sells, and each session gets one message per flush.
+ */
+@Component
+public class StockWebSocketHandler extends TextWebSocketHandler implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(StockWebSocketHandler.class);
+
+    private final CouponInventory couponInventory;
+    private final ObjectMapper objectMapper;
+    private final int maxSubscriptions;
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+
+    private final ConcurrentMap<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribersByCoupon = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Integer> pending = new ConcurrentHashMap<>();
+
+    public StockWebSocketHandler(CouponInventory couponInventory, ObjectMapper objectMapper,
+                                 @Value("${stock.push.max-subscriptions:200}") int maxSubscriptions,
+                                 @Value("${stock.push.send-time-limit-ms:5000}") int sendTimeLimitMs,
+                                 @Value("${stock.push.buffer-size-limit:65536}") int bufferSizeLimit) {
+        this.couponInventory = couponInventory;
+        this.objectMapper = objectMapper;
+        this.maxSubscriptions = maxSubscriptions;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // Sends come from both the flush and the subscribe reply; the decorator serializes them, and a slow
+        // client only loses its oldest buffered updates, which the next absolute update replaces anyway
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit,
+                ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+        subscribers.put(session.getId(), new Subscriber(concurrent));
+        logger.info("✅ Stock WebSocket connection established: {}", session.getId());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Subscriber subscriber = subscribers.get(session.getId());
+        if (subscriber == null) return;
+
+        JsonNode ids;
+        try {
+            ids = objectMapper.readTree(message.getPayload()).path("subscribe");
+        } catch (Exception e) {
+            ids = null;
+        }
+        if (ids == null || !ids.isArray()) {
+            logger.warn("⚠️ Ignoring stock message without a subscribe list from session {}", session.getId());
+            return;
+        }
+
+        Set<Long> couponIds = new LinkedHashSet<>();
+        for (JsonNode id : ids) {
+            if (couponIds.size() >= maxSubscriptions) break;
+            if (id.canConvertToLong()) couponIds.add(id.asLong());
+        }
+
+        subscribe(subscriber, couponIds);
+        send(subscriber, couponInventory.getQuantities(couponIds));
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        logger.error("⚠️ Stock WebSocket transport error in session {}: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Subscriber subscriber = subscribers.remove(session.getId());
+        if (subscriber != null) subscribe(subscriber, Set.of());
+        logger.info("🔌 Stock WebSocket connection closed: {}, Reason: {}", session.getId(), status);
+    }
+
+    /** Stock published by any pod; kept until the next flush, later values replacing earlier ones. */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Map<Long, Integer> quantities = objectMapper.readValue(message.getBody(), new TypeReference<Map<Long, Integer>>() {});
+            quantities.forEach((couponId, quantity) -> {
+                if (subscribersByCoupon.containsKey(couponId)) pending.put(couponId, quantity);
+            });
+        } catch (Exception e) {
+            logger.warn("⚠️ Ignoring malformed stock update: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.push.interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        Map<Subscriber, Map<Long, Integer>> outgoing = new HashMap<>();
+        for (Iterator<Map.Entry<Long, Integer>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Integer> update = it.next();
+            it.remove();
+            for (Subscriber subscriber : subscribersByCoupon.getOrDefault(update.getKey(), Set.of())) {
+                outgoing.computeIfAbsent(subscriber, s -> new HashMap<>()).put(update.getKey(), update.getValue());
+            }
+        }
+        outgoing.forEach(this::send);
+    }
+
+    private void subscribe(Subscriber subscriber, Set<Long> couponIds) {
+        synchronized (subscriber) {
+            for (Long couponId : subscriber.couponIds) {
+                if (couponIds.contains(couponId)) continue;
+                subscribersByCoupon.computeIfPresent(couponId, (id, set) -> {
+                    set.remove(subscriber);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+            for (Long couponId : couponIds) {
+                // Added inside compute so a concurrent removal of the last subscriber cannot drop the set under us
+                subscribersByCoupon.compute(couponId, (id, set) -> {
+                    Set<Subscriber> subscribed = set != null ? set : ConcurrentHashMap.newKeySet();
+                    subscribed.add(subscriber);
+                    return subscribed;
+                });
+            }
+            subscriber.couponIds = couponIds;
+        }
+    }
+
+    private void send(Subscriber subscriber, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty() || !subscriber.session.isOpen()) return;
+
+        try {
+            String payload = objectMapper.writeValueAsString(Map.of("stock", quantities));
+            subscriber.session.sendMessage(new TextMessage(payload));
+        } catch (Exception e) {
+            logger.warn("⚠️ Failed to push stock to session {}: {}", subscriber.session.getId(), e.getMessage());
+        }
+    }
+
+    private static final class Subscriber {
+        private final WebSocketSession session;
+        private volatile Set<Long> couponIds = Set.of();
+
+        private Subscriber(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
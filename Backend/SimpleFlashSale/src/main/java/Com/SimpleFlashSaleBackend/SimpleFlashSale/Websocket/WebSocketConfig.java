@@ -8,14 +8,19 @@ import org.springframework.web.socket.config.annotation.*;
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final OrderStatusWebSocketHandler orderStatusWebSocketHandler;
+    private final StockWebSocketHandler stockWebSocketHandler;
 
-    public WebSocketConfig(OrderStatusWebSocketHandler orderStatusWebSocketHandler) {
+    public WebSocketConfig(OrderStatusWebSocketHandler orderStatusWebSocketHandler,
+                           StockWebSocketHandler stockWebSocketHandler) {
         this.orderStatusWebSocketHandler = orderStatusWebSocketHandler;
+        this.stockWebSocketHandler = stockWebSocketHandler;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(orderStatusWebSocketHandler, "/ws/orders/*")
                 .setAllowedOrigins("*");
+        registry.addHandler(stockWebSocketHandler, "/ws/stock")
+                .setAllowedOrigins("*");
     }
 }
\ No newline at end of file
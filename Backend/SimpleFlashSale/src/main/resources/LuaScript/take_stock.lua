@@ -0,0 +1,19 @@
+local couponQuantityKey = KEYS[1]
+
+local requested = tonumber(ARGV[1])
+
+-- Get inventory count
+local inventory = tonumber(redis.call("GET", couponQuantityKey))
+if not inventory then
+    return -3  -- Debugging: Inventory retrieval failed
+end
+
+if inventory <= 0 then
+    return 0  -- Out of stock
+end
+
+-- Hand out as many units as requested, never more than what is left
+local granted = math.min(inventory, requested)
+redis.call("DECRBY", couponQuantityKey, granted)
+
+return granted
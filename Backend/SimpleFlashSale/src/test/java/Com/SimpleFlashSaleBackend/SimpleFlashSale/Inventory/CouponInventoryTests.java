@@ -0,0 +1,56 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.LuaScriptRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CouponInventoryTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keysOfOneShardShareAClusterHashTag() {
+        LuaScriptRegistry luaScriptRegistry = mock(LuaScriptRegistry.class);
+        when(luaScriptRegistry.eval(eq(LuaScriptRegistry.BUY_COUPON), eq(RScript.ReturnType.INTEGER), anyList(), any()))
+                .thenReturn(1L);
+        CouponInventory inventory = new CouponInventory(mock(RedissonClient.class), luaScriptRegistry,
+                mock(StockChangeFeed.class), 4);
+
+        Set<String> tags = new HashSet<>();
+        for (int user = 0; user < 32; user++) {
+            inventory.reserve("user-" + user, 42L);
+        }
+        ArgumentCaptor<List<Object>> keys = ArgumentCaptor.forClass(List.class);
+        verify(luaScriptRegistry, times(32))
+                .eval(eq(LuaScriptRegistry.BUY_COUPON), eq(RScript.ReturnType.INTEGER), keys.capture(), any());
+
+        for (List<Object> shardKeys : keys.getAllValues()) {
+            String tag = hashTag((String) shardKeys.get(0));
+            assertEquals(tag, hashTag((String) shardKeys.get(1))); // Same slot: no CROSSSLOT
+            tags.add(tag);
+        }
+        // Different shards still hash apart
+        assertEquals(Set.of("42:0", "42:1", "42:2", "42:3"), tags);
+    }
+
+    /** The part of the key Redis Cluster hashes: between the first '{' and the next '}'. */
+    private static String hashTag(String key) {
+        int open = key.indexOf('{');
+        int close = key.indexOf('}', open + 1);
+        return key.substring(open + 1, close);
+    }
+}
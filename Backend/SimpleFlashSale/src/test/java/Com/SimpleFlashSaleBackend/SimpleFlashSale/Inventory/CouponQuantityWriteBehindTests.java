@@ -0,0 +1,60 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CouponQuantityWriteBehindTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushLocksOnlyThePeekedEntries() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(100))).thenReturn(List.of(4L, 5L));
+        // Another pod folded entry 4 while this one waited for the lock
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(4L), eq(5L))).thenReturn(List.<Object[]>of(new Object[]{5L}));
+
+        new CouponQuantityWriteBehind(jdbcTemplate, transactionTemplate, 100).flush();
+
+        ArgumentCaptor<String> lockQuery = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(lockQuery.capture(), any(RowMapper.class), eq(4L), eq(5L));
+        assertEquals("SELECT id, coupon_id, units FROM coupon_quantity_journal WHERE id IN (?,?) FOR UPDATE", lockQuery.getValue());
+        assertFalse(lockQuery.getValue().contains("LIMIT"));
+
+        ArgumentCaptor<List<Object[]>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM coupon_quantity_journal WHERE id = ?"), deleted.capture());
+        assertEquals(5L, deleted.getValue().get(0)[0]);
+    }
+
+    @Test
+    void emptyJournalTakesNoLocks() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(100))).thenReturn(List.of());
+
+        new CouponQuantityWriteBehind(jdbcTemplate, transactionTemplate, 100).flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+}
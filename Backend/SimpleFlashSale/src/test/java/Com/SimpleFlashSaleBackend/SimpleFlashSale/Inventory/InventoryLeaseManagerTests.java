@@ -0,0 +1,169 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryLeaseManagerTests {
+
+    private static final long COUPON_ID = 42L;
+
+    /** Stands in for the Redis quantity key and take_stock.lua. */
+    private static final class CentralStock implements StockLeaseSource {
+        private final AtomicInteger quantity;
+        private final AtomicLong epoch = new AtomicLong();
+
+        private CentralStock(int quantity) {
+            this.quantity = new AtomicInteger(quantity);
+        }
+
+        /** What an admin update does: overwrite the total under a new epoch. */
+        private long reset(int newQuantity) {
+            long next = epoch.incrementAndGet();
+            quantity.set(newQuantity);
+            return next;
+        }
+
+        @Override
+        public long epoch(long couponId) {
+            return epoch.get();
+        }
+
+        @Override
+        public int grant(long couponId, int units) {
+            while (true) {
+                int current = quantity.get();
+                if (current <= 0) return 0;
+                int granted = Math.min(current, units);
+                if (quantity.compareAndSet(current, current - granted)) return granted;
+            }
+        }
+
+        @Override
+        public boolean release(long couponId, int units, long leasedEpoch) {
+            if (leasedEpoch != epoch.get()) return false;
+            quantity.addAndGet(units);
+            return true;
+        }
+    }
+
+    @Test
+    void concurrentBuysAcrossNodesNeverOversell() throws Exception {
+        int stock = 5_000;
+        CentralStock central = new CentralStock(stock);
+        ExecutorService refill = Executors.newFixedThreadPool(2);
+
+        // Three "pods" sharing the same central counter
+        List<InventoryLeaseManager> nodes = List.of(
+                new InventoryLeaseManager(central, refill, true, 200, 50, 30),
+                new InventoryLeaseManager(central, refill, true, 200, 50, 30),
+                new InventoryLeaseManager(central, refill, true, 200, 50, 30));
+
+        int threads = 48;
+        int attemptsPerThread = 500;
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService buyers = Executors.newFixedThreadPool(threads);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            InventoryLeaseManager node = nodes.get(t % nodes.size());
+            futures.add(buyers.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (node.tryAcquire(COUPON_ID)) sold.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+
+        buyers.shutdown();
+        refill.shutdown();
+        assertTrue(refill.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Demand (24,000) exceeds stock, so everything must be sold exactly once
+        assertEquals(stock, sold.get());
+        assertEquals(0, central.quantity.get());
+        for (InventoryLeaseManager node : nodes) {
+            assertFalse(node.tryAcquire(COUPON_ID));
+        }
+    }
+
+    @Test
+    void unusedLeaseIsReturnedOnShutdown() {
+        CentralStock central = new CentralStock(1_000);
+        InventoryLeaseManager node = new InventoryLeaseManager(central, Runnable::run, true, 200, 0, 30);
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(node.tryAcquire(COUPON_ID));
+        }
+        assertEquals(800, central.quantity.get());
+
+        node.returnAllLeases();
+
+        assertEquals(970, central.quantity.get());
+    }
+
+    @Test
+    void releasedUnitIsSoldAgain() {
+        CentralStock central = new CentralStock(1);
+        InventoryLeaseManager node = new InventoryLeaseManager(central, Runnable::run, true, 200, 0, 30);
+
+        assertTrue(node.tryAcquire(COUPON_ID));
+        assertFalse(node.tryAcquire(COUPON_ID));
+
+        node.release(COUPON_ID);
+
+        assertTrue(node.tryAcquire(COUPON_ID));
+        assertFalse(node.tryAcquire(COUPON_ID));
+    }
+
+    @Test
+    void leaseFromBeforeAStockResetIsNotGivenBack() {
+        CentralStock central = new CentralStock(1_000);
+        InventoryLeaseManager node = new InventoryLeaseManager(central, Runnable::run, true, 200, 0, 30);
+        assertTrue(node.tryAcquire(COUPON_ID));
+
+        // Admin sets the stock to 50 while this node still holds 199 leased units
+        long epoch = central.reset(50);
+        node.returnAllLeases();
+        assertEquals(50, central.quantity.get());
+
+        // After the broadcast the node leases from the new total only
+        node.forfeit(COUPON_ID, epoch);
+        int sold = 0;
+        while (node.tryAcquire(COUPON_ID)) sold++;
+        assertEquals(50, sold);
+    }
+
+    @Test
+    void busyLeaseIsKeptPastItsGrantAgeAndIdleOneIsReturned() throws Exception {
+        CentralStock central = new CentralStock(1_000);
+        InventoryLeaseManager node = new InventoryLeaseManager(central, Runnable::run, true, 200, 0, 1);
+        assertTrue(node.tryAcquire(COUPON_ID));
+
+        Thread.sleep(600);
+        assertTrue(node.tryAcquire(COUPON_ID));
+        Thread.sleep(600);
+        node.returnExpiredLeases(); // granted 1.2 s ago, but bought from 0.6 s ago
+        assertEquals(800, central.quantity.get());
+
+        Thread.sleep(600);
+        node.returnExpiredLeases();
+        assertEquals(998, central.quantity.get());
+    }
+}
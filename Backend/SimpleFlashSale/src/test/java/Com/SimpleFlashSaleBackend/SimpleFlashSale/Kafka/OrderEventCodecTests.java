@@ -0,0 +1,55 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderEventCodecTests {
+
+    private final OrderEventSerializer serializer = new OrderEventSerializer();
+    private final OrderEventDeserializer deserializer = new OrderEventDeserializer();
+
+    @Test
+    void roundTripsAllFields() {
+        OrderEvent order = new OrderEvent(UUID.randomUUID(), "f3a1c9e2-user-ünïcode", 123456789L, "server-7");
+
+        OrderEvent decoded = deserializer.deserialize("payment_orders", serializer.serialize("payment_orders", order));
+
+        assertEquals(order.getOrderId(), decoded.getOrderId());
+        assertEquals(order.getUserId(), decoded.getUserId());
+        assertEquals(order.getCouponId(), decoded.getCouponId());
+        assertEquals(order.getServerId(), decoded.getServerId());
+    }
+
+    @Test
+    void readsOrdersWrittenInTheOldTextFormat() {
+        UUID orderId = UUID.randomUUID();
+        byte[] legacy = String.format("%s,%s,%s,%s", orderId, "user-1", 42L, "server-3").getBytes(StandardCharsets.UTF_8);
+
+        OrderEvent decoded = deserializer.deserialize("payment_orders", legacy);
+
+        assertEquals(orderId, decoded.getOrderId());
+        assertEquals("user-1", decoded.getUserId());
+        assertEquals(42L, decoded.getCouponId());
+        assertEquals("server-3", decoded.getServerId());
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("payment_orders", "abc,user".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedRecords() {
+        byte[] bytes = serializer.serialize("payment_orders", new OrderEvent(UUID.randomUUID(), "user", 1L, "server"));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("payment_orders", truncated));
+
+        bytes[0] = 2;
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("payment_orders", bytes));
+    }
+}
@@ -0,0 +1,60 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogGenerationTests {
+
+    private final Cache<CatalogPage, List<CouponDTO>> localCache = Caffeine.newBuilder().build();
+    private final CatalogPage page = CatalogPage.page(0, 0, 8);
+
+    @Test
+    void bumpPublishesNewGenerationAndDropsLocalPages() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        @SuppressWarnings("unchecked")
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.increment("SimpleFlashSale#catalog:generation")).thenReturn(7L);
+        CatalogGeneration generation = new CatalogGeneration(redisTemplate, localCache);
+        localCache.put(page, List.of());
+
+        generation.bump();
+
+        assertEquals(7L, generation.current());
+        assertNull(localCache.getIfPresent(page));
+        verify(redisTemplate).convertAndSend(CatalogGeneration.INVALIDATE_CHANNEL, "7");
+    }
+
+    @Test
+    void lateMessageNeverMovesGenerationBack() {
+        CatalogGeneration generation = new CatalogGeneration(mock(StringRedisTemplate.class), localCache);
+
+        generation.onMessage(message("5"), null);
+        localCache.put(page, List.of());
+        generation.onMessage(message("3"), null);
+
+        assertEquals(5L, generation.current());
+        assertNotNull(localCache.getIfPresent(page));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CatalogGeneration.INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SingleFlightLoaderTests {
+
+    @Test
+    void concurrentMissesOnOneKeyShareOneLoad() throws Exception {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock lease = mock(RLock.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lease);
+        when(lease.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+        when(lease.isHeldByCurrentThread()).thenReturn(true);
+        SingleFlightLoader loader = new SingleFlightLoader(redissonClient, new SimpleMeterRegistry(), 1000, 5000);
+
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService readers = Executors.newFixedThreadPool(16);
+
+        // The first reader becomes the leader and blocks inside the load until every other reader has arrived
+        Future<String> leader = readers.submit(() -> loader.load("page:0", () -> null, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "coupons";
+        }));
+        loading.await();
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            followers.add(readers.submit(() -> loader.load("page:0", () -> null, () -> {
+                loads.incrementAndGet();
+                return "coupons";
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals("coupons", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) assertEquals("coupons", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+
+        // A different key is not coalesced with the first one
+        assertEquals("other", loader.load("page:1", () -> null, () -> "other"));
+        readers.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Search;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Entity.Coupon;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.CouponRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CouponSearchIndexTests {
+
+    private final CouponRepository couponRepository = mock(CouponRepository.class);
+    private final List<Runnable> reloads = new ArrayList<>();
+    private CouponSearchIndex index;
+
+    @BeforeEach
+    void buildIndex() {
+        when(couponRepository.findByIsDeletedFalse()).thenReturn(List.of(
+                coupon(1L, "Coffee Voucher", "Any drink at the corner cafe"),
+                coupon(2L, "Coffee", "Plain filter coffee"),
+                coupon(3L, "Cinema Night", "Two tickets, popcorn and coffee"),
+                coupon(4L, "Decaf Coffee Beans", "500g bag")));
+        index = new CouponSearchIndex(couponRepository, mock(StringRedisTemplate.class), reloads::add,
+                new SimpleMeterRegistry());
+        index.rebuild();
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(2L, 1L, 4L, 3L), ids(index.search("coffee", 0, 10)));
+        assertEquals(List.of(4L, 3L), ids(index.search("coffee", 1, 2)));
+    }
+
+    @Test
+    void matchesSubstringsLikeTheSqlQueryDid() {
+        assertEquals(List.of(4L), ids(index.search("CAF C", 0, 10)));
+        assertEquals(List.of(3L), ids(index.search("pop", 0, 10)));
+        assertEquals(List.of(), ids(index.search("tea", 0, 10)));
+    }
+
+    @Test
+    void incrementalChangesReplaceAndRemoveDocuments() {
+        Coupon renamed = coupon(2L, "Green Tea", "Loose leaf");
+        index.onCouponChanged(renamed);
+        assertEquals(List.of(2L), ids(index.search("tea", 0, 10)));
+        assertEquals(List.of(1L, 4L, 3L), ids(index.search("coffee", 0, 10)));
+
+        renamed.setDeleted(true);
+        index.onCouponChanged(renamed);
+        assertEquals(List.of(), ids(index.search("tea", 0, 10)));
+    }
+
+    @Test
+    void pagePastTheLastHitIsEmptyEvenWhenTheOffsetOverflowsAnInt() {
+        assertEquals(List.of(), index.search("coffee", 5, 10));
+        assertEquals(List.of(), index.search("coffee", Integer.MAX_VALUE, 100));
+    }
+
+    @Test
+    void changeFromAnotherPodIsReloadedOffTheListenerThread() {
+        when(couponRepository.findById(2L)).thenReturn(Optional.of(coupon(2L, "Green Tea", "Loose leaf")));
+
+        index.onMessage(new DefaultMessage(CouponSearchIndex.CHANGE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "other-pod:2".getBytes(StandardCharsets.UTF_8)), null);
+        verify(couponRepository, never()).findById(2L);
+        assertEquals(1, reloads.size());
+
+        reloads.forEach(Runnable::run);
+        assertEquals(List.of(2L), ids(index.search("tea", 0, 10)));
+    }
+
+    @Test
+    void autocompleteSuggestsNamesByWordPrefix() {
+        assertEquals(List.of("Coffee", "Coffee Voucher", "Decaf Coffee Beans"), index.autocomplete("co", 10));
+        assertEquals(List.of("Coffee"), index.autocomplete("co", 1));
+    }
+
+    private static List<Long> ids(List<CouponDTO> coupons) {
+        return coupons.stream().map(CouponDTO::getId).toList();
+    }
+
+    private static Coupon coupon(long id, String name, String description) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setName(name);
+        coupon.setDescription(description);
+        coupon.setImageURL("img");
+        coupon.setPrice(10);
+        coupon.setQuantity(5);
+        return coupon;
+    }
+}
@@ -0,0 +1,49 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Response.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CatalogPageEncoderTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CatalogPageEncoder encoder = new CatalogPageEncoder(objectMapper);
+
+    private final List<CouponDTO> metadata = List.of(
+            new CouponDTO(1L, "Coffee \"quantity\":-2147483648", "a.png", 5, "Hot", 0, false, false),
+            new CouponDTO(2L, "Cinema", "b.png", 20, "Two seats", 0, false, false));
+
+    @Test
+    void producesTheSameJsonAsJackson() throws Exception {
+        CatalogPageEncoder.Encoded encoded = encoder.encode("page:0", metadata, Map.of(1L, 7, 2L, 0), 3);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("coupons", List.of(
+                new CouponDTO(1L, "Coffee \"quantity\":-2147483648", "a.png", 5, "Hot", 7, false, false),
+                new CouponDTO(2L, "Cinema", "b.png", 20, "Two seats", 0, false, false)));
+        data.put("totalPages", 3);
+        String expected = objectMapper.writeValueAsString(new Response<>(200, CatalogPageEncoder.MESSAGE, data));
+
+        assertEquals(expected, new String(encoded.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reusesBytesUntilStockChanges() {
+        CatalogPageEncoder.Encoded first = encoder.encode("page:0", metadata, Map.of(1L, 7, 2L, 1), 3);
+        CatalogPageEncoder.Encoded same = encoder.encode("page:0", metadata, Map.of(1L, 7, 2L, 1), 3);
+        CatalogPageEncoder.Encoded sold = encoder.encode("page:0", metadata, Map.of(1L, 6, 2L, 1), 3);
+
+        assertSame(first, same);
+        assertNotEquals(first.etag(), sold.etag());
+    }
+}
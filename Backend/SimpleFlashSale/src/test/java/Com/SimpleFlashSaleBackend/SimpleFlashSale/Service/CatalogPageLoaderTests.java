@@ -0,0 +1,127 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Dto.CouponDTO;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.CatalogPage;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Redis.SingleFlightLoader;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.CouponRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogPageLoaderTests {
+
+    private final CatalogPage page = CatalogPage.page(1, 0, 8);
+    private final List<CouponDTO> cached = List.of(new CouponDTO(1L, "Coffee", "a.png", 5, "Hot", 0, false, false));
+    private final List<CouponDTO> refreshed = List.of(new CouponDTO(1L, "Coffee", "b.png", 5, "Hot", 0, false, false));
+
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+    @SuppressWarnings("unchecked")
+    private final RBucket<Object> bucket = mock(RBucket.class);
+    private final CouponRepository couponRepository = mock(CouponRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogCacheMetrics metrics = new CatalogCacheMetrics(meterRegistry);
+    private final AtomicLong nanos = new AtomicLong();
+    private final List<Runnable> refreshes = new ArrayList<>();
+
+    private LoadingCache<CatalogPage, List<CouponDTO>> cache() throws Exception {
+        when(redissonClient.getBucket(page.cacheKey())).thenReturn(bucket);
+        RLock lease = mock(RLock.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lease);
+        when(lease.tryLock(anyLong(), anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(true);
+
+        CatalogPageLoader loader = new CatalogPageLoader(couponRepository, redissonClient,
+                new SingleFlightLoader(redissonClient, meterRegistry, 100, 1000), metrics, 3600, 60);
+        LoadingCache<CatalogPage, List<CouponDTO>> cache = Caffeine.newBuilder()
+                .expireAfterWrite(300, TimeUnit.SECONDS)
+                .refreshAfterWrite(60, TimeUnit.SECONDS)
+                .executor(refreshes::add)
+                .ticker(nanos::get)
+                .recordStats()
+                .build(loader);
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, CatalogCacheMetrics.CAFFEINE_CACHE_NAME);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsAreCountedPerTier() throws Exception {
+        LoadingCache<CatalogPage, List<CouponDTO>> cache = cache();
+        when(bucket.get()).thenReturn(cached);
+        cache.get(page); // Caffeine miss, Redis hit
+        cache.get(page); // Caffeine hit
+
+        cache.invalidateAll();
+        when(bucket.get()).thenReturn(null);
+        when(couponRepository.findByIsDeletedFalse(any(Pageable.class))).thenReturn(Page.empty());
+        cache.get(page); // Caffeine miss, Redis miss, MySQL load
+
+        Map<String, Object> summary = metrics.summary();
+        Map<String, Object> caffeine = (Map<String, Object>) summary.get("caffeine");
+        Map<String, Object> redis = (Map<String, Object>) summary.get("redis");
+        Map<String, Object> mysql = (Map<String, Object>) summary.get("mysql");
+        assertEquals(1.0, caffeine.get("hits"));
+        assertEquals(2.0, caffeine.get("misses"));
+        assertEquals(1.0, redis.get("hits"));
+        assertEquals(1.0, redis.get("misses"));
+        assertEquals(1L, mysql.get("loads"));
+        assertEquals(2.0 / 3, (double) summary.get("overallHitRatio"), 1e-9);
+    }
+
+    @Test
+    void hotPageIsRefreshedInTheBackground() throws Exception {
+        LoadingCache<CatalogPage, List<CouponDTO>> cache = cache();
+        when(bucket.get()).thenReturn(cached);
+        assertSame(cached, cache.get(page));
+
+        // Another pod already refreshed Redis within the window: take its copy
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        when(bucket.get()).thenReturn(refreshed);
+        when(bucket.remainTimeToLive()).thenReturn(TimeUnit.SECONDS.toMillis(3590));
+
+        assertSame(cached, cache.get(page)); // served stale while the refresh runs
+        runRefreshes();
+        assertSame(refreshed, cache.get(page));
+    }
+
+    @Test
+    void failedRefreshKeepsServingAndIsCounted() throws Exception {
+        LoadingCache<CatalogPage, List<CouponDTO>> cache = cache();
+        when(bucket.get()).thenReturn(cached);
+        cache.get(page);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        when(bucket.remainTimeToLive()).thenThrow(new IllegalStateException("Redis down"));
+
+        assertSame(cached, cache.get(page));
+        runRefreshes();
+        assertSame(cached, cache.get(page));
+        assertEquals(1.0, meterRegistry.get("coupon.cache.refresh.failures").counter().count());
+    }
+
+    private void runRefreshes() {
+        List<Runnable> pending = new ArrayList<>(refreshes);
+        refreshes.clear();
+        pending.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,76 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentPipelineTests {
+
+    @Test
+    void ordersOfOneUserRunInSequenceWhileUsersRunInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(registry.getListenerContainer(PaymentPipeline.PAYMENT_LISTENER_ID)).thenReturn(container);
+        PaymentPipeline pipeline = new PaymentPipeline(registry, 16);
+
+        Map<String, List<Integer>> completed = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> runningPerUser = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            for (String user : List.of("alice", "bob", "carol", "dave")) {
+                int sequence = i;
+                futures.add(pipeline.submit(user, () -> CompletableFuture.runAsync(() -> {
+                    assertEquals(1, runningPerUser.computeIfAbsent(user, u -> new AtomicInteger()).incrementAndGet());
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep();
+                    completed.computeIfAbsent(user, u -> new CopyOnWriteArrayList<>()).add(sequence);
+                    running.decrementAndGet();
+                    runningPerUser.get(user).decrementAndGet();
+                }, executor)));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        for (List<Integer> sequence : completed.values()) {
+            assertEquals(50, sequence.size());
+            for (int i = 0; i < sequence.size(); i++) assertEquals(i, sequence.get(i));
+        }
+        assertTrue(maxRunning.get() > 1, "different users should be paid in parallel");
+        assertEquals(0, pipeline.inFlight());
+
+        // 200 submissions against 16 permits must have paused and later resumed the consumer
+        verify(container, atLeastOnce()).pause();
+        verify(container, atLeastOnce()).resume();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponInventory;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponQuantityWriteBehind;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.SoldOutRegistry;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Kafka.OrderEvent;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.ParkedOrderStore;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.PaymentGateway;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.PaymentResult;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Payment.PaymentRetryRouter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.CouponRepository;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.UserCouponRepository;
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceTests {
+
+    private static final String DEBIT_CREDIT = "UPDATE users SET credit = credit - ? WHERE id = ? AND credit >= ?";
+    private static final String INSERT_USER_COUPON =
+            "INSERT IGNORE INTO user_coupons (id, user_id, coupon_id, payment_success, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchPaysOnlyOrdersWhoseConditionalDebitSucceeded() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        CouponRepository couponRepository = mock(CouponRepository.class);
+        CouponInventory couponInventory = mock(CouponInventory.class);
+        CouponQuantityWriteBehind writeBehind = mock(CouponQuantityWriteBehind.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(couponInventory.restore(anyString(), any(Long.class))).thenReturn(1L);
+        PaymentGateway paymentGateway = mock(PaymentGateway.class);
+        when(paymentGateway.charge(any(), anyString())).thenReturn(CompletableFuture.completedFuture(PaymentResult.success()));
+
+        CouponRepository.CouponPrice price = mock(CouponRepository.CouponPrice.class);
+        when(price.getId()).thenReturn(7L);
+        when(price.getPrice()).thenReturn(100);
+        when(couponRepository.findPricesByIdIn(anyCollection())).thenReturn(List.of(price));
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of("alice"));
+
+        // Alice can afford only the first of her two orders: the second conditional UPDATE matches no row
+        when(jdbcTemplate.batchUpdate(eq(DEBIT_CREDIT), anyList())).thenReturn(new int[]{1, 0});
+        when(jdbcTemplate.batchUpdate(eq(INSERT_USER_COUPON), anyList())).thenReturn(new int[]{1});
+
+        PaymentService paymentService = new PaymentService(userRepository, couponRepository,
+                mock(UserCouponRepository.class), couponInventory, writeBehind, mock(SoldOutRegistry.class),
+                mock(StringRedisTemplate.class), jdbcTemplate, transactionTemplate, mock(PaymentPipeline.class), paymentGateway, mock(ParkedOrderStore.class),
+                mock(PaymentRetryRouter.class), Runnable::run);
+
+        paymentService.listenForPaymentBatch(List.of(
+                new OrderEvent(UUID.randomUUID(), "alice", 7L, "server-1"),
+                new OrderEvent(UUID.randomUUID(), "alice", 7L, "server-1")));
+
+        verify(userRepository, never()).findAllById(any());
+        verify(couponRepository, never()).findAllById(any());
+        verify(couponInventory, times(1)).restore("alice", 7L);
+        verify(writeBehind).recordSold(Map.of(7L, 1));
+
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(INSERT_USER_COUPON), inserts.capture());
+        assertEquals(1, inserts.getValue().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeliveredAndRepeatedOrdersAreDebitedOnce() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        CouponRepository couponRepository = mock(CouponRepository.class);
+        UserCouponRepository userCouponRepository = mock(UserCouponRepository.class);
+        CouponInventory couponInventory = mock(CouponInventory.class);
+        CouponQuantityWriteBehind writeBehind = mock(CouponQuantityWriteBehind.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        PaymentGateway paymentGateway = mock(PaymentGateway.class);
+        when(paymentGateway.charge(any(), anyString())).thenReturn(CompletableFuture.completedFuture(PaymentResult.success()));
+
+        CouponRepository.CouponPrice price = mock(CouponRepository.CouponPrice.class);
+        when(price.getId()).thenReturn(7L);
+        when(price.getPrice()).thenReturn(100);
+        when(couponRepository.findPricesByIdIn(anyCollection())).thenReturn(List.of(price));
+
+        // The first order committed before the batch was redelivered; the second appears twice in this poll
+        OrderEvent settled = new OrderEvent(UUID.randomUUID(), "alice", 7L, "server-1");
+        OrderEvent repeated = new OrderEvent(UUID.randomUUID(), "bob", 7L, "server-1");
+        when(userCouponRepository.findExistingIds(anyCollection())).thenReturn(List.of(settled.getOrderId().toString()));
+        when(jdbcTemplate.batchUpdate(eq(DEBIT_CREDIT), anyList())).thenReturn(new int[]{1});
+        when(jdbcTemplate.batchUpdate(eq(INSERT_USER_COUPON), anyList())).thenReturn(new int[]{1});
+
+        PaymentService paymentService = new PaymentService(userRepository, couponRepository,
+                userCouponRepository, couponInventory, writeBehind, mock(SoldOutRegistry.class),
+                mock(StringRedisTemplate.class), jdbcTemplate, transactionTemplate, mock(PaymentPipeline.class), paymentGateway, mock(ParkedOrderStore.class),
+                mock(PaymentRetryRouter.class), Runnable::run);
+
+        paymentService.listenForPaymentBatch(List.of(settled, repeated, repeated));
+
+        verify(paymentGateway, times(1)).charge(eq(repeated), anyString());
+        verify(paymentGateway, never()).charge(eq(settled), anyString());
+        ArgumentCaptor<List<Object[]>> debits = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(DEBIT_CREDIT), debits.capture());
+        assertEquals(1, debits.getValue().size());
+        assertEquals("bob", debits.getValue().get(0)[1]);
+        verify(writeBehind).recordSold(Map.of(7L, 1));
+        verify(couponInventory, never()).restore(anyString(), any(Long.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gatewayErrorInsideABatchGivesTheStockBackAndParksTheOrder() throws Exception {
+        CouponRepository couponRepository = mock(CouponRepository.class);
+        CouponInventory couponInventory = mock(CouponInventory.class);
+        CouponQuantityWriteBehind writeBehind = mock(CouponQuantityWriteBehind.class);
+        ParkedOrderStore parkedOrderStore = mock(ParkedOrderStore.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        when(couponInventory.restore(anyString(), any(Long.class))).thenReturn(1L);
+
+        OrderEvent paid = new OrderEvent(UUID.randomUUID(), "alice", 7L, "server-1");
+        OrderEvent failed = new OrderEvent(UUID.randomUUID(), "bob", 7L, "server-1");
+        PaymentGateway paymentGateway = mock(PaymentGateway.class);
+        when(paymentGateway.charge(eq(paid), anyString())).thenReturn(CompletableFuture.completedFuture(PaymentResult.success()));
+        when(paymentGateway.charge(eq(failed), anyString())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Payment gateway unavailable")));
+
+        CouponRepository.CouponPrice price = mock(CouponRepository.CouponPrice.class);
+        when(price.getId()).thenReturn(7L);
+        when(price.getPrice()).thenReturn(100);
+        when(couponRepository.findPricesByIdIn(anyCollection())).thenReturn(List.of(price));
+        when(jdbcTemplate.batchUpdate(eq(DEBIT_CREDIT), anyList())).thenReturn(new int[]{1});
+        when(jdbcTemplate.batchUpdate(eq(INSERT_USER_COUPON), anyList())).thenReturn(new int[]{1});
+
+        PaymentService paymentService = new PaymentService(mock(UserRepository.class), couponRepository,
+                mock(UserCouponRepository.class), couponInventory, writeBehind, mock(SoldOutRegistry.class),
+                mock(StringRedisTemplate.class), jdbcTemplate, transactionTemplate, mock(PaymentPipeline.class), paymentGateway, parkedOrderStore,
+                mock(PaymentRetryRouter.class), Runnable::run);
+
+        paymentService.listenForPaymentBatch(List.of(paid, failed));
+
+        verify(writeBehind).recordSold(Map.of(7L, 1));
+        verify(couponInventory).restore("bob", 7L);
+        verify(couponInventory, never()).restore(eq("alice"), any(Long.class));
+        verify(parkedOrderStore).park(argThat(parked -> parked.getOrderId().equals(failed.getOrderId().toString())
+                && parked.getError().equals("Payment gateway unavailable")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedNotificationAfterCommitIsNotRetriedAndRedeliveryDoesNotPayTwice() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        CouponRepository couponRepository = mock(CouponRepository.class);
+        UserCouponRepository userCouponRepository = mock(UserCouponRepository.class);
+        CouponInventory couponInventory = mock(CouponInventory.class);
+        CouponQuantityWriteBehind writeBehind = mock(CouponQuantityWriteBehind.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        PaymentGateway paymentGateway = mock(PaymentGateway.class);
+        when(paymentGateway.charge(any(), anyString())).thenReturn(CompletableFuture.completedFuture(PaymentResult.success()));
+        PaymentRetryRouter retryRouter = mock(PaymentRetryRouter.class);
+
+        OrderEvent order = new OrderEvent(UUID.randomUUID(), "alice", 7L, "server-1");
+        when(couponRepository.findPriceById(7L)).thenReturn(Optional.of(100));
+        when(userRepository.debitCredit("alice", 100)).thenReturn(1);
+        // Committed by the first attempt, so the redelivery finds the row
+        when(userCouponRepository.existsById(order.getOrderId().toString())).thenReturn(false, true);
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenThrow(new IllegalStateException("Redis down"));
+
+        PaymentService paymentService = new PaymentService(userRepository, couponRepository,
+                userCouponRepository, couponInventory, writeBehind, mock(SoldOutRegistry.class),
+                redisTemplate, mock(JdbcTemplate.class), transactionTemplate,
+                new PaymentPipeline(mock(KafkaListenerEndpointRegistry.class), 10),
+                paymentGateway, mock(ParkedOrderStore.class), retryRouter, Runnable::run);
+
+        ConsumerRecord<String, OrderEvent> record = new ConsumerRecord<>("payment_orders", 0, 0L, "alice", order);
+        paymentService.listenForPayments(record).get();
+        paymentService.listenForPayments(record).get();
+
+        verify(retryRouter, never()).forward(any(), any());
+        verify(userRepository, times(1)).debitCredit("alice", 100);
+        verify(writeBehind, times(1)).recordSold(7L, 1);
+        verify(couponInventory, never()).restore(anyString(), any(Long.class));
+        verify(paymentGateway, times(2)).charge(order, order.getOrderId().toString());
+    }
+
+    @Test
+    void unexpectedFailureIsForwardedToTheRetryTopicWithoutRestoringStock() throws Exception {
+        CouponInventory couponInventory = mock(CouponInventory.class);
+        PaymentGateway paymentGateway = mock(PaymentGateway.class);
+        when(paymentGateway.charge(any(), anyString())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Payment gateway unavailable")));
+        PaymentRetryRouter retryRouter = mock(PaymentRetryRouter.class);
+
+        PaymentService paymentService = new PaymentService(mock(UserRepository.class), mock(CouponRepository.class),
+                mock(UserCouponRepository.class), couponInventory, mock(CouponQuantityWriteBehind.class),
+                mock(SoldOutRegistry.class), mock(StringRedisTemplate.class), mock(JdbcTemplate.class),
+                mock(TransactionTemplate.class), new PaymentPipeline(mock(KafkaListenerEndpointRegistry.class), 10),
+                paymentGateway, mock(ParkedOrderStore.class), retryRouter, Runnable::run);
+
+        ConsumerRecord<String, OrderEvent> record = new ConsumerRecord<>("payment_orders", 0, 0L, "alice",
+                new OrderEvent(UUID.randomUUID(), "alice", 7L, "server-1"));
+        paymentService.listenForPayments(record).get();
+
+        verify(retryRouter).forward(eq(record), any(IllegalStateException.class));
+        verify(couponInventory, never()).restore(anyString(), any(Long.class));
+    }
+}
@@ -0,0 +1,69 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Service;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserDirectoryTests {
+
+    @Test
+    void preloadedAndRegisteredUsersNeverHitTheDatabase() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllIds()).thenReturn(List.of("alice", "bob"));
+        UserDirectory directory = new UserDirectory(userRepository, Runnable::run);
+
+        directory.preload();
+        directory.register("carol");
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(directory.exists("alice"));
+            assertTrue(directory.exists("carol"));
+        }
+        verify(userRepository, never()).existsById("alice");
+        verify(userRepository, never()).existsById("carol");
+    }
+
+    @Test
+    void unknownUsersAreLookedUpOnce() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsById("dave")).thenReturn(true);
+        when(userRepository.existsById("mallory")).thenReturn(false);
+        UserDirectory directory = new UserDirectory(userRepository, Runnable::run);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(directory.exists("dave"));
+            assertFalse(directory.exists("mallory"));
+        }
+        verify(userRepository, times(1)).existsById("dave");
+        verify(userRepository, times(1)).existsById("mallory");
+    }
+
+    @Test
+    void asyncLookupOnlyLeavesTheCallerForUnknownIds() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllIds()).thenReturn(List.of("alice"));
+        when(userRepository.existsById("dave")).thenReturn(true);
+        List<Runnable> lookups = new ArrayList<>();
+        UserDirectory directory = new UserDirectory(userRepository, lookups::add);
+        directory.preload();
+
+        assertTrue(directory.existsAsync("alice").getNow(false));
+        assertTrue(lookups.isEmpty());
+
+        CompletableFuture<Boolean> dave = directory.existsAsync("dave");
+        assertFalse(dave.isDone()); // MySQL is queried on the lookup executor, not here
+        lookups.forEach(Runnable::run);
+        assertTrue(dave.get());
+    }
+}
@@ -0,0 +1,316 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStatusWebSocketHandlerTests {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusWebSocketHandlerTests.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> sendTasks = new ArrayList<>();
+
+    @Test
+    void updateGoesOnlyToTheSessionsOfThatOrder() throws Exception {
+        OrderStatusWebSocketHandler handler = new OrderStatusWebSocketHandler(Runnable::run, meterRegistry, 5000, 60000);
+        TestSession buyer = new TestSession("s1", "101");
+        TestSession otherBuyer = new TestSession("s2", "102");
+        handler.afterConnectionEstablished(buyer);
+        handler.afterConnectionEstablished(otherBuyer);
+
+        handler.sendOrderUpdate("101", "Payment successful!");
+
+        assertEquals(List.of("Order 101 update: Payment successful!"), buyer.sent);
+        assertTrue(otherBuyer.sent.isEmpty());
+
+        handler.afterConnectionClosed(buyer, CloseStatus.NORMAL);
+        handler.sendOrderUpdate("101", "Payment successful!");
+        assertEquals(1, buyer.sent.size());
+        assertEquals(1, handler.activeSessions());
+    }
+
+    @Test
+    void statusPublishedBeforeTheSocketConnectsIsReplayed() throws Exception {
+        OrderStatusWebSocketHandler handler = new OrderStatusWebSocketHandler(Runnable::run, meterRegistry, 5000, 60000);
+        handler.sendOrderUpdate("101", "Processing");
+        handler.sendOrderUpdate("101", "Payment successful!");
+
+        TestSession buyer = new TestSession("s1", "101");
+        handler.afterConnectionEstablished(buyer);
+        TestSession otherBuyer = new TestSession("s2", "102");
+        handler.afterConnectionEstablished(otherBuyer);
+
+        assertEquals(List.of("Order 101 update: Payment successful!"), buyer.sent);
+        assertTrue(otherBuyer.sent.isEmpty());
+    }
+
+    /** Many connected sessions, one update per order: each session gets exactly its own order's update. */
+    @Test
+    void routesEachUpdateOnlyToItsOwnSession() throws Exception {
+        OrderStatusWebSocketHandler handler = new OrderStatusWebSocketHandler(Runnable::run, meterRegistry, 5000, 60000);
+        int sessions = 500;
+        TestSession[] connected = new TestSession[sessions];
+        for (int i = 0; i < sessions; i++) {
+            connected[i] = new TestSession("s" + i, String.valueOf(i));
+            handler.afterConnectionEstablished(connected[i]);
+        }
+
+        for (int i = 0; i < sessions; i++) {
+            handler.sendOrderUpdate(String.valueOf(i), "Payment successful!");
+        }
+
+        // Broadcasting would be sessions² sends; routed, it is one per update
+        int sent = 0;
+        for (int i = 0; i < sessions; i++) {
+            assertEquals(List.of("Order " + i + " update: Payment successful!"), connected[i].sent);
+            sent += connected[i].sent.size();
+        }
+        assertEquals(sessions, sent);
+    }
+
+    /**
+     * Routing latency with 50k connected sessions, one update per order. Not part of the default test run; run it
+     * with {@code mvn test -Pbenchmark}; the latency percentiles are logged.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkRoutingAcrossFiftyThousandSessions() throws Exception {
+        OrderStatusWebSocketHandler handler = new OrderStatusWebSocketHandler(Runnable::run, meterRegistry, 5000, 60000);
+        int sessions = 50_000;
+        TestSession[] connected = new TestSession[sessions];
+        for (int i = 0; i < sessions; i++) {
+            connected[i] = new TestSession("s" + i, String.valueOf(i));
+            handler.afterConnectionEstablished(connected[i]);
+        }
+
+        // Warm-up round, so the measured round does not time class loading and JIT compilation
+        for (int i = 0; i < sessions; i++) {
+            handler.sendOrderUpdate(String.valueOf(i), "Processing");
+        }
+
+        Timer routing = Timer.builder("benchmark.websocket.orders.routing")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            long sendStart = System.nanoTime();
+            handler.sendOrderUpdate(String.valueOf(i), "Payment successful!");
+            routing.record(System.nanoTime() - sendStart, TimeUnit.NANOSECONDS);
+        }
+        long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        for (int i = 0; i < sessions; i++) {
+            assertEquals(List.of("Order " + i + " update: Processing", "Order " + i + " update: Payment successful!"),
+                    connected[i].sent);
+        }
+
+        HistogramSnapshot snapshot = routing.takeSnapshot();
+        ValueAtPercentile[] percentiles = snapshot.percentileValues();
+        logger.info("Routed {} updates over {} sessions in {} ms: mean {} us, p50 {} us, p99 {} us, p99.9 {} us, max {} us",
+                sessions, sessions, totalMs, micros(snapshot.mean(TimeUnit.NANOSECONDS)),
+                micros(percentiles[0].value(TimeUnit.NANOSECONDS)), micros(percentiles[1].value(TimeUnit.NANOSECONDS)),
+                micros(percentiles[2].value(TimeUnit.NANOSECONDS)), micros(snapshot.max(TimeUnit.NANOSECONDS)));
+    }
+
+    private static String micros(double nanos) {
+        return String.format("%.1f", nanos / 1000);
+    }
+
+    @Test
+    void updatesWaitingForTheSameSessionAreCoalesced() throws Exception {
+        OrderStatusWebSocketHandler handler = new OrderStatusWebSocketHandler(sendTasks::add, meterRegistry, 5000, 60000);
+        TestSession buyer = new TestSession("s1", "101");
+        handler.afterConnectionEstablished(buyer);
+
+        handler.sendOrderUpdate("101", "Processing");
+        handler.sendOrderUpdate("101", "Payment successful!");
+        assertEquals(1.0, meterRegistry.get("websocket.orders.send.queue").gauge().value());
+        assertEquals(1, sendTasks.size()); // one drain task per session, however many updates
+
+        sendTasks.forEach(Runnable::run);
+        assertEquals(List.of("Order 101 update: Payment successful!"), buyer.sent);
+        assertEquals(0.0, meterRegistry.get("websocket.orders.send.queue").gauge().value());
+    }
+
+    @Test
+    void slowSessionDoesNotBlockTheListenerAndIsEvicted() throws Exception {
+        ExecutorService sendThreads = Executors.newFixedThreadPool(2);
+        try {
+            OrderStatusWebSocketHandler handler = new OrderStatusWebSocketHandler(sendThreads, meterRegistry, 50, 60000);
+            TestSession slow = new TestSession("s1", "101");
+            slow.blockSends();
+            TestSession fast = new TestSession("s2", "102");
+            handler.afterConnectionEstablished(slow);
+            handler.afterConnectionEstablished(fast);
+
+            // Returns at once even though the slow client's write never completes
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+                handler.sendOrderUpdate("101", "Payment successful!");
+                handler.sendOrderUpdate("102", "Payment successful!");
+            });
+            assertTrue(slow.sendStarted.await(1, TimeUnit.SECONDS));
+            fast.awaitSent(1);
+
+            Thread.sleep(100);
+            handler.evictSlowSessions();
+            assertFalse(slow.isOpen());
+            assertTrue(fast.isOpen());
+            assertEquals(1.0, meterRegistry.get("websocket.orders.evictions").counter().count());
+        } finally {
+            sendThreads.shutdownNow();
+        }
+    }
+
+    /** Session stub: mocks are too heavy to create by the tens of thousands. */
+    private static final class TestSession implements WebSocketSession {
+        private final String id;
+        private final URI uri;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+        private volatile boolean open = true;
+
+        private TestSession(String id, String orderId) {
+            this.id = id;
+            this.uri = URI.create("ws://localhost:8080/ws/orders/" + orderId);
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        /** Writes hang until the session is closed, like a client that stopped reading. */
+        private void blockSends() {
+            release = new CountDownLatch(1);
+        }
+
+        private void awaitSent(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (sent.size() < count && System.nanoTime() < deadline) Thread.sleep(5);
+            assertEquals(count, sent.size());
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            sendStarted.countDown();
+            CountDownLatch blocked = release;
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Session closed during write");
+            }
+            sent.add(((TextMessage) message).getPayload());
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            open = false;
+            CountDownLatch blocked = release;
+            if (blocked != null) blocked.countDown();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package Com.SimpleFlashSaleBackend.SimpleFlashSale.Websocket;
+
+import Com.SimpleFlashSaleBackend.SimpleFlashSale.Inventory.CouponInventory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockWebSocketHandlerTests {
+
+    private final CouponInventory couponInventory = mock(CouponInventory.class);
+    private final StockWebSocketHandler handler =
+            new StockWebSocketHandler(couponInventory, new ObjectMapper(), 200, 5000, 65536);
+
+    @Test
+    void coalescesUpdatesIntoOneMessagePerFlush() throws Exception {
+        WebSocketSession session = openSession("s1");
+        when(couponInventory.getQuantities(Set.of(1L, 2L))).thenReturn(Map.of(1L, 10, 2L, 5));
+        handler.handleTextMessage(session, new TextMessage("{\"subscribe\":[1,2]}"));
+
+        handler.onMessage(update("{\"1\":9}"), null);
+        handler.onMessage(update("{\"1\":8,\"3\":4}"), null);
+        handler.onMessage(update("{\"2\":4}"), null);
+        handler.flush();
+        handler.flush();
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, times(2)).sendMessage(sent.capture());
+        assertEquals(json("{\"stock\":{\"1\":10,\"2\":5}}"), json(sent.getAllValues().get(0).getPayload()));
+        // Latest value per coupon only, nothing for the unsubscribed coupon 3
+        assertEquals(json("{\"stock\":{\"1\":8,\"2\":4}}"), json(sent.getAllValues().get(1).getPayload()));
+    }
+
+    @Test
+    void closedSessionsStopReceivingUpdates() throws Exception {
+        WebSocketSession session = openSession("s1");
+        when(couponInventory.getQuantities(Set.of(1L))).thenReturn(Map.of());
+        handler.handleTextMessage(session, new TextMessage("{\"subscribe\":[1]}"));
+        handler.afterConnectionClosed(session, null);
+
+        handler.onMessage(update("{\"1\":9}"), null);
+        handler.flush();
+
+        verify(session, never()).sendMessage(any());
+    }
+
+    private WebSocketSession openSession(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private static JsonNode json(String payload) throws Exception {
+        return new ObjectMapper().readTree(payload);
+    }
+
+    private static DefaultMessage update(String body) {
+        return new DefaultMessage(StockUpdatePublisher.STOCK_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}